@@ -0,0 +1,76 @@
+package com.ibasco.ucgdisplay.tools.benchmarks;
+
+import com.ibasco.ucgdisplay.tools.util.CodeBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeBuilderBenchmark {
+
+    private static final CodeBuilder.Template FONT_MAP_ENTRY = CodeBuilder.Template.compile("font_map[\"%s\"] = %s;");
+
+    @Param({"100", "2000"})
+    private int lineCount;
+
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        names = new String[lineCount];
+        for (int i = 0; i < lineCount; i++)
+            names[i] = String.format("u8g2_font_face%04d_tf", i);
+    }
+
+    @Benchmark
+    public String formattedLines() {
+        CodeBuilder code = new CodeBuilder();
+        code.setUseUnixStyleSeparator(true);
+        code.appendLine("void U8g2hal_InitFonts(u8g2_lookup_font_map_t &font_map) {");
+        for (String name : names)
+            code.appendTabbedLine("font_map[\"%s\"] = %s;", name, name);
+        code.append("}");
+        return code.toString();
+    }
+
+    @Benchmark
+    public String literalLines() {
+        CodeBuilder code = new CodeBuilder();
+        code.setUseUnixStyleSeparator(true);
+        for (String name : names)
+            code.appendLine(name);
+        return code.toString();
+    }
+
+    @Benchmark
+    public String templateLines() {
+        CodeBuilder code = new CodeBuilder();
+        code.setUseUnixStyleSeparator(true);
+        code.appendLine("void U8g2hal_InitFonts(u8g2_lookup_font_map_t &font_map) {");
+        for (String name : names)
+            code.appendTabbedLine(FONT_MAP_ENTRY, name, name);
+        code.append("}");
+        return code.toString();
+    }
+
+    /**
+     * Template lines written through to a {@link Writer} which discards the output, so only the cost of producing the code is measured
+     */
+    @Benchmark
+    public void templateLinesToWriter() throws IOException {
+        try (CodeBuilder code = new CodeBuilder(Writer.nullWriter())) {
+            code.setUseUnixStyleSeparator(true);
+            code.appendLine("void U8g2hal_InitFonts(u8g2_lookup_font_map_t &font_map) {");
+            for (String name : names)
+                code.appendTabbedLine(FONT_MAP_ENTRY, name, name);
+            code.append("}");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ibasco.ucgdisplay.tools.benchmarks;
+
+import com.ibasco.ucgdisplay.tools.CodeExtractor;
+import com.ibasco.ucgdisplay.tools.CodeGenerator;
+import com.ibasco.ucgdisplay.tools.CodeParser;
+import com.ibasco.ucgdisplay.tools.beans.CommInterface;
+import com.ibasco.ucgdisplay.tools.beans.Controller;
+import com.ibasco.ucgdisplay.tools.service.GithubService;
+import com.squareup.javapoet.JavaFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each generate* method of {@link CodeGenerator}. The sources are read from a temporary {@link SourceFixture} in offline mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeGeneratorBenchmark {
+
+    private static final String BRANCH = "master";
+
+    @Param({"1", "10"})
+    private int scale;
+
+    @Param({"2000"})
+    private int fontCount;
+
+    private SourceFixture fixture;
+
+    private CodeGenerator generator;
+
+    private List<Controller> controllers;
+
+    private List<CommInterface> interfaces;
+
+    private final List<String> exclusions = List.of();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new SourceFixture(scale, fontCount, 200);
+        var extractor = new CodeExtractor();
+        extractor.setSourceDir(fixture.getRoot());
+        var githubService = new GithubService();
+        githubService.setLocalSourceDir(fixture.getRoot());
+        var codebuild = extractor.downloadCodebuildFromBranch(BRANCH);
+        var parser = new CodeParser();
+        controllers = parser.parseControllerCode(codebuild.getControllerSection());
+        interfaces = parser.parseInterfaceCode(codebuild.getInterfaceSection());
+        generator = new CodeGenerator(extractor, githubService);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public JavaFile generateGlcdCode() {
+        return generator.generateGlcdCode(controllers, exclusions);
+    }
+
+    @Benchmark
+    public JavaFile generateControllerTypeEnum() {
+        return generator.generateControllerTypeEnum(controllers);
+    }
+
+    @Benchmark
+    public JavaFile generateGlcdSizeEnum() {
+        return generator.generateGlcdSizeEnum(controllers);
+    }
+
+    @Benchmark
+    public JavaFile generateGlcdFontEnum() throws IOException {
+        return generator.generateGlcdFontEnum(BRANCH, exclusions);
+    }
+
+    @Benchmark
+    public JavaFile generateInterfaceLookup() {
+        return generator.generateInterfaceLookup(interfaces);
+    }
+
+    @Benchmark
+    public String generateFontLookupTableCpp() {
+        return generator.generateFontLookupTableCpp(BRANCH, exclusions);
+    }
+
+    @Benchmark
+    public String generateConstexprFontLookupTableCpp() {
+        generator.setConstexprFontTable(true);
+        try {
+            return generator.generateFontLookupTableCpp(BRANCH, exclusions);
+        } finally {
+            generator.setConstexprFontTable(false);
+        }
+    }
+
+    @Benchmark
+    public String generateSetupLookupTableCpp() {
+        return generator.generateSetupLookupTableCpp(controllers, exclusions);
+    }
+
+    @Benchmark
+    public String generateU8g2CmakeFile() {
+        return generator.generateU8g2CmakeFile(BRANCH);
+    }
+
+    @Benchmark
+    public String generateManifest() {
+        return generator.generateManifest(controllers);
+    }
+
+    @Benchmark
+    public String generateMD5Hash() {
+        return generator.generateMD5Hash(controllers);
+    }
+
+    @Benchmark
+    public String renderGlcdCode() {
+        return generator.generateGlcdCode(controllers, exclusions).toString();
+    }
+}
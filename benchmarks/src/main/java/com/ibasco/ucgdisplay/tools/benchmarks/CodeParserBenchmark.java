@@ -0,0 +1,77 @@
+package com.ibasco.ucgdisplay.tools.benchmarks;
+
+import com.ibasco.ucgdisplay.tools.CodeParser;
+import com.ibasco.ucgdisplay.tools.CodebuildListener;
+import com.ibasco.ucgdisplay.tools.CodebuildIndex;
+import com.ibasco.ucgdisplay.tools.beans.CommInterface;
+import com.ibasco.ucgdisplay.tools.beans.Controller;
+import com.ibasco.ucgdisplay.tools.beans.VendorConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeParserBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int scale;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private final CodeParser parser = new CodeParser();
+
+    private CharSequence controllerSection;
+
+    private CharSequence interfaceSection;
+
+    private String codebuild;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        parser.setParallel(parallel);
+        byte[] data = SyntheticCodebuild.generate(scale);
+        codebuild = new String(data, StandardCharsets.UTF_8);
+        var index = new CodebuildIndex(data);
+        controllerSection = index.getControllerSection();
+        interfaceSection = index.getInterfaceSection();
+    }
+
+    @Benchmark
+    public CodebuildIndex indexCodebuild() {
+        var index = new CodebuildIndex(SyntheticCodebuild.generate(1));
+        index.getControllerSection();
+        index.getInterfaceSection();
+        return index;
+    }
+
+    @Benchmark
+    public List<Controller> parseControllerCode() {
+        return parser.parseControllerCode(controllerSection);
+    }
+
+    @Benchmark
+    public List<CommInterface> parseInterfaceCode() {
+        return parser.parseInterfaceCode(interfaceSection);
+    }
+
+    @Benchmark
+    public int parseCodebuildStreaming() {
+        int[] count = new int[1];
+        parser.parseCodebuild(new StringReader(codebuild), new CodebuildListener() {
+            @Override
+            public void onConfig(VendorConfig config) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+}
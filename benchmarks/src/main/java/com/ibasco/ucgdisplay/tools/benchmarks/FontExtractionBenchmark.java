@@ -0,0 +1,40 @@
+package com.ibasco.ucgdisplay.tools.benchmarks;
+
+import com.ibasco.ucgdisplay.tools.CodeExtractor;
+import com.ibasco.ucgdisplay.tools.CodeExtractor.FontEntry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FontExtractionBenchmark {
+
+    @Param({"2000"})
+    private int fontCount;
+
+    private SourceFixture fixture;
+
+    private final CodeExtractor extractor = new CodeExtractor();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new SourceFixture(1, fontCount, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<FontEntry> extractFontFilesFromDirectory() throws IOException {
+        return extractor.extractFontFilesFromDirectory(fixture.getRoot().resolve("tools/font/build/single_font_files"));
+    }
+}
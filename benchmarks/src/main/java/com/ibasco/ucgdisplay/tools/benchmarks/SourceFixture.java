@@ -0,0 +1,52 @@
+package com.ibasco.ucgdisplay.tools.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Creates a temporary u8g2 source directory (codebuild.c, csrc and single font files) so the generators can be benchmarked in offline mode
+ *
+ * @author Rafael Ibasco
+ */
+public final class SourceFixture implements AutoCloseable {
+
+    private static final String[] FONT_SUFFIXES = {"tf", "tr", "tn", "te", "mf", "mr", "t_all"};
+
+    private final Path root;
+
+    public SourceFixture(int scale, int fontCount, int sourceFileCount) throws IOException {
+        root = Files.createTempDirectory("ucgd-benchmark-");
+        Path codebuild = Files.createDirectories(root.resolve("tools/codebuild")).resolve("codebuild.c");
+        Files.write(codebuild, SyntheticCodebuild.generate(scale));
+
+        Path csrc = Files.createDirectories(root.resolve("csrc"));
+        for (int i = 0; i < sourceFileCount; i++)
+            Files.writeString(csrc.resolve(String.format("u8x8_d_file%04d.c", i)), "#include \"u8x8.h\"\n");
+
+        Path fontDir = Files.createDirectories(root.resolve("tools/font/build/single_font_files"));
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 256; i++)
+            body.append("  \"\\000\\001\\002\\003\\004\\005\\006\\007\\010\\011\\012\\013\\014\\015\\016\"\n");
+        for (int i = 0; i < fontCount; i++) {
+            String name = String.format("u8g2_font_face%04d_%s", i / FONT_SUFFIXES.length, FONT_SUFFIXES[i % FONT_SUFFIXES.length]);
+            String header = String.format("/*\n  Fontname: -Adobe-Helvetica-Medium-R-Normal--%d-120-75-75-P-67-ISO10646-1\n  Copyright: Copyright (c) 1984, 1987 Adobe Systems Incorporated.\n  Glyphs: %d/%d\n  BBX Build Mode: 0\n*/\n", i, 95, 758);
+            Files.writeString(fontDir.resolve(name + ".c"), header + "const uint8_t " + name + "[] U8G2_FONT_SECTION(\"" + name + "\") = \n" + body + ";\n", StandardCharsets.UTF_8);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                Files.deleteIfExists(path);
+        }
+    }
+}
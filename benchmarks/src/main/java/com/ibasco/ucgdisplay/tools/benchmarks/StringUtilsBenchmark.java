@@ -0,0 +1,38 @@
+package com.ibasco.ucgdisplay.tools.benchmarks;
+
+import com.ibasco.ucgdisplay.tools.CodebuildIndex;
+import com.ibasco.ucgdisplay.tools.util.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringUtilsBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int scale;
+
+    private String controllerSection;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        controllerSection = new CodebuildIndex(SyntheticCodebuild.generate(scale)).getControllerSection().toString();
+    }
+
+    @Benchmark
+    public String sanitizeData() {
+        return StringUtils.sanitizeData(controllerSection);
+    }
+
+    @Benchmark
+    public StringBuilder sanitizeDataReuseBuffer() {
+        return StringUtils.sanitizeData(controllerSection, buffer);
+    }
+}
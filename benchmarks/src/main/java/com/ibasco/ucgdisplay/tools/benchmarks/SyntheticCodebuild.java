@@ -0,0 +1,85 @@
+package com.ibasco.ucgdisplay.tools.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates a synthetic codebuild.c by replicating the controller list of {@code testcodebuild.c}. Each copy of the list
+ * receives a unique controller name suffix so the parsed output grows linearly with the scale factor.
+ *
+ * @author Rafael Ibasco
+ */
+public final class SyntheticCodebuild {
+
+    private static final String RESOURCE = "/testcodebuild.c";
+
+    private static final String LIST_DECLARATION = "struct controller controller_list[] =";
+
+    private static final Pattern PATTERN_CONTROLLER_NAME = Pattern.compile("(\\{\\s*\")(\\w+)(\",)");
+
+    private SyntheticCodebuild() {
+    }
+
+    /**
+     * @return The contents of the original {@code testcodebuild.c} resource
+     */
+    public static String load() {
+        try (InputStream in = SyntheticCodebuild.class.getResourceAsStream(RESOURCE)) {
+            if (in == null)
+                throw new IllegalStateException("Resource not found: " + RESOURCE);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generate a codebuild.c with a controller list {@code scale} times the size of the original
+     *
+     * @param scale
+     *         The number of copies of the controller list (1 = original)
+     *
+     * @return The generated codebuild.c contents
+     */
+    public static byte[] generate(int scale) {
+        if (scale < 1)
+            throw new IllegalArgumentException("Scale must be greater than zero");
+        String source = load();
+        int declaration = source.indexOf(LIST_DECLARATION);
+        if (declaration < 0)
+            throw new IllegalStateException("Controller list not found");
+        int start = source.indexOf('{', declaration) + 1;
+        int end = source.indexOf("};", start);
+        String entries = source.substring(start, end).stripTrailing();
+
+        StringBuilder code = new StringBuilder(source.length() + entries.length() * (scale - 1));
+        code.append(source, 0, start);
+        code.append(entries);
+        for (int i = 2; i <= scale; i++) {
+            code.append(",\n");
+            Matcher matcher = PATTERN_CONTROLLER_NAME.matcher(entries);
+            final String suffix = "x" + i;
+            code.append(matcher.replaceAll(m -> Matcher.quoteReplacement(m.group(1) + m.group(2) + suffix + m.group(3))));
+        }
+        code.append('\n');
+        code.append(source, end, source.length());
+        return code.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticCodebuild <scale> <output file>");
+            System.exit(1);
+        }
+        Path output = Paths.get(args[1]);
+        Files.write(output, generate(Integer.parseInt(args[0])));
+        System.out.println("Synthetic codebuild.c written to " + output);
+    }
+}
@@ -1,7 +1,17 @@
 package com.ibasco.ucgdisplay.tools;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.ibasco.ucgdisplay.tools.beans.CommInterface;
+import com.ibasco.ucgdisplay.tools.beans.Controller;
+import com.ibasco.ucgdisplay.tools.beans.GeneratorState;
+import com.ibasco.ucgdisplay.tools.beans.Manifest;
+import com.ibasco.ucgdisplay.tools.metrics.ClassFileLimitCheck;
+import com.ibasco.ucgdisplay.tools.metrics.PerformanceReport;
 import com.ibasco.ucgdisplay.tools.service.GithubService;
-import com.squareup.javapoet.JavaFile;
+import com.ibasco.ucgdisplay.tools.service.HttpCache;
+import com.ibasco.ucgdisplay.tools.util.CodeBuilder;
+import com.ibasco.ucgdisplay.tools.util.CountingReader;
 import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,10 +21,18 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Scanner;
 
 /**
@@ -44,6 +62,8 @@ public class Application {
 
     private final CodeParser parser = new CodeParser();
 
+    private final GithubService githubService = new GithubService();
+
     private final Options options = new Options();
 
     private final CommandLineParser cliParser = new DefaultParser();
@@ -52,6 +72,32 @@ public class Application {
 
     private static final String DEFAULT_BRANCH = "master";
 
+    private static final String STATE_FILE = ".ucg-code-gen-state.json";
+
+    private static final String JAVA_SOURCE_ROOT = "src/main/java/";
+
+    private static final String EXPORT_GLCD = "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/Glcd.java";
+
+    private static final String EXPORT_GLCD_CONTROLLER = "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/enums/GlcdController.java";
+
+    private static final String EXPORT_GLCD_SIZE = "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/enums/GlcdSize.java";
+
+    private static final String EXPORT_GLCD_FONT = "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/enums/GlcdFont.java";
+
+    private static final String EXPORT_GLCD_FONT_METADATA = "drivers/glcd/src/main/resources/com/ibasco/ucgdisplay/drivers/glcd/enums/" + CodeGenerator.FONT_METADATA_RESOURCE;
+
+    private static final String EXPORT_INTERFACE_LOOKUP = "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/GlcdInterfaceLookup.java";
+
+    private static final String EXPORT_FONT_LOOKUP = "native/modules/graphics/src/main/cpp/U8g2LookupFonts.cpp";
+
+    private static final String EXPORT_SETUP_LOOKUP = "native/modules/graphics/src/main/cpp/U8g2LookupSetup.cpp";
+
+    private static final String EXPORT_U8G2_CMAKE = "native/cmake/external/u8g2.cmake";
+
+    private static final String EXPORT_MANIFEST = "docs/controllers.json";
+
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
     private Path projectPath;
 
     private Path fontExclusionFilePath;
@@ -60,12 +106,34 @@ public class Application {
 
     private boolean includeComments;
 
+    private boolean constexprFontTable;
+
+    private int fontShardCount = 1;
+
+    private boolean packedFontMetadata;
+
+    private boolean checkClassLimits;
+
     private String branchName;
 
     private boolean testMode = false;
 
     private URL testResource;
 
+    private Path cacheDirPath;
+
+    private Path sourceDirPath;
+
+    private boolean force;
+
+    private long cacheMaxSize = HttpCache.DEFAULT_MAX_SIZE;
+
+    private Duration cacheStaleTimeout;
+
+    private final PerformanceReport report = new PerformanceReport();
+
+    private Path reportPath;
+
     private Application() {
         options.addRequiredOption("p", "path", true, "The base project path where all the files will be automatically exported");
         options.addOption("t", "test", false, "Enable Test Mode");
@@ -73,6 +141,18 @@ public class Application {
         options.addOption("c", "inc-comments", false, "When set, comments will be included in the code-generation process");
         options.addOption("h", "help", false, "Print usage");
         options.addOption("f", "exclude-fonts", true, "Specify the lookup file containing the list of fonts to be excluded in the generation process");
+        options.addOption(null, "stream-fonts", false, "Extract the font files by streaming the project archive instead of saving it to disk first");
+        options.addOption(null, "parallel-parse", false, "Parse the entries of the controller list in parallel (codebuild.c is downloaded in full before parsing)");
+        options.addOption(null, "constexpr-fonts", false, "Generate the native font lookup as a sorted constexpr table instead of a std::map populated at startup");
+        options.addOption(null, "font-shards", true, "Split the native font lookup into the specified number of source files, which can be compiled in parallel (Default: 1)");
+        options.addOption(null, "packed-font-metadata", false, "Generate the font enum without fields, the font metadata is written to a binary resource loaded on first access");
+        options.addOption(null, "check-class-limits", false, "Compile the generated java sources and report how close each class is to the limits of the class file format");
+        options.addOption(null, "force", false, "Always regenerate, even if the branch and the inputs have not changed since the last run");
+        options.addOption("s", "source-dir", true, "Read codebuild.c, the u8g2 sources and font files from a local u8g2 checkout instead of Github");
+        options.addOption("d", "cache-dir", true, "Enable the persistent HTTP cache using the specified directory");
+        options.addOption(null, "cache-size", true, "The maximum size of the HTTP cache in megabytes (Default: 512)");
+        options.addOption(null, "cache-stale-timeout", true, "Use the cached copy if revalidation takes longer than the specified number of seconds");
+        options.addOption(null, "report", true, "Write a JSON summary of the duration and throughput of each stage of the run to the specified file");
     }
 
     private void initOptions(String[] args) throws ParseException {
@@ -107,6 +187,82 @@ public class Application {
             }
         }
 
+        if (cmd.hasOption("stream-fonts")) {
+            extractor.setSpoolArchive(false);
+            log.debug("[OPTION] Streaming font files from project archive");
+        }
+
+        if (cmd.hasOption("parallel-parse")) {
+            parser.setParallel(true);
+            log.debug("[OPTION] Parallel parsing enabled");
+        }
+
+        if (cmd.hasOption("constexpr-fonts")) {
+            constexprFontTable = true;
+            log.debug("[OPTION] Generating constexpr font lookup table");
+        }
+
+        if (cmd.hasOption("font-shards")) {
+            try {
+                fontShardCount = Integer.parseInt(cmd.getOptionValue("font-shards"));
+            } catch (NumberFormatException e) {
+                throw new ParseException("Invalid font shard count: " + cmd.getOptionValue("font-shards"));
+            }
+            if (fontShardCount < 1 || fontShardCount > CodeGenerator.MAX_FONT_SHARDS)
+                throw new ParseException("Font shard count must be between 1 and " + CodeGenerator.MAX_FONT_SHARDS);
+            log.debug("[OPTION] Font shard count = {}", fontShardCount);
+        }
+
+        if (cmd.hasOption("packed-font-metadata")) {
+            packedFontMetadata = true;
+            log.debug("[OPTION] Writing font metadata to a packed resource");
+        }
+
+        if (cmd.hasOption("check-class-limits")) {
+            checkClassLimits = true;
+            log.debug("[OPTION] Checking class file limits");
+        }
+
+        if (cmd.hasOption("force")) {
+            force = true;
+            log.debug("[OPTION] Force = {}", force);
+        }
+
+        if (cmd.hasOption("s")) {
+            sourceDirPath = Paths.get(cmd.getOptionValue("s"));
+            if (!Files.isRegularFile(sourceDirPath.resolve("tools/codebuild/codebuild.c")))
+                throw new ParseException("Not a valid u8g2 source directory: " + sourceDirPath + ". File 'tools/codebuild/codebuild.c' not found");
+            log.debug("[OPTION] Using source directory: {}", sourceDirPath);
+        }
+
+        if (cmd.hasOption("d")) {
+            cacheDirPath = Paths.get(cmd.getOptionValue("d"));
+            log.debug("[OPTION] Using cache directory: {}", cacheDirPath);
+        }
+
+        if (cmd.hasOption("cache-size")) {
+            try {
+                cacheMaxSize = Long.parseLong(cmd.getOptionValue("cache-size")) * 1024 * 1024;
+            } catch (NumberFormatException e) {
+                throw new ParseException("Invalid cache size: " + cmd.getOptionValue("cache-size"));
+            }
+            if (cacheMaxSize <= 0)
+                throw new ParseException("Cache size must be greater than zero");
+        }
+
+        if (cmd.hasOption("cache-stale-timeout")) {
+            try {
+                cacheStaleTimeout = Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("cache-stale-timeout")));
+            } catch (NumberFormatException e) {
+                throw new ParseException("Invalid cache stale timeout: " + cmd.getOptionValue("cache-stale-timeout"));
+            }
+        }
+
+        if (cmd.hasOption("report")) {
+            reportPath = Paths.get(cmd.getOptionValue("report"));
+            log.debug("[OPTION] Writing performance report to: {}", reportPath);
+        }
+
         if (cmd.hasOption("p")) {
             projectPath = Paths.get(cmd.getOptionValue("p"));
             if (!Files.isDirectory(projectPath)) {
@@ -129,12 +285,33 @@ public class Application {
             System.exit(1);
         }
 
-        String controllerCode = (testMode) ? extractor.extractControllersFromUrl(testResource.toExternalForm()) : extractor.extractControllersFromBranch(branchName);
-        String interfaceCode = (testMode) ? extractor.extractInterfacesFromUrl(testResource.toExternalForm()) : extractor.extractInterfacesFromUrl(String.format(CodeExtractor.DEFAULT_CODEBUILD_URL, GithubService.REPO_OWNER, branchName));
-        var controllers = parser.parseControllerCode(controllerCode);
-        var interfaces = parser.parseInterfaceCode(interfaceCode);
-        var generator = new CodeGenerator(extractor);
-        generator.setIncludeComments(includeComments);
+        try {
+            execute();
+        } finally {
+            if (reportPath != null)
+                report.write(reportPath);
+        }
+    }
+
+    private void execute() throws Exception {
+        try (var httpCache = (cacheDirPath != null) ? new HttpCache(cacheDirPath, cacheMaxSize) : null) {
+            if (httpCache != null) {
+                httpCache.setStaleTimeout(cacheStaleTimeout);
+                extractor.setHttpCache(httpCache);
+                githubService.setHttpCache(httpCache);
+                report.setHttpCache(httpCache);
+            }
+            generate();
+        }
+    }
+
+    private void generate() throws Exception {
+        extractor.setReport(report);
+
+        if (sourceDirPath != null) {
+            extractor.setSourceDir(sourceDirPath);
+            githubService.setLocalSourceDir(sourceDirPath);
+        }
 
         //Retrieve exclusions
         var excludedFonts = getExclusions(fontExclusionFilePath, "/excludedFonts.properties");
@@ -143,74 +320,329 @@ public class Application {
         log.info("[RUN] Added {} font exclusions", excludedFonts.size());
         log.info("[RUN] Added {} controller exclusions", excludedControllers.size());
 
-        final JavaFile glcdFile = generator.generateGlcdCode(controllers, excludedControllers);
-        final JavaFile glcdControllerTypes = generator.generateControllerTypeEnum(controllers);
-        final JavaFile glcdSize = generator.generateGlcdSizeEnum(controllers);
-        final JavaFile glcdFontEnum = generator.generateGlcdFontEnum(branchName, excludedFonts);
-        final JavaFile interfaceLookupCode = generator.generateInterfaceLookup(interfaces);
-        final String fontCppCode = generator.generateFontLookupTableCpp(branchName, excludedFonts);
-        final String setupCppCode = generator.generateSetupLookupTableCpp(controllers, excludedControllers);
-        final String u8g2CmakeFile = generator.generateU8g2CmakeFile(branchName);
-        //Create temp directory
-        var tempDirWithPrefix = Files.createTempDirectory("ucg-code-gen-");
-
-        //Export to Project
+        //Skip the run if neither the upstream branch nor the inputs have changed
+        GeneratorState state = null;
+        GeneratorState lastState = loadState();
+        if (!testMode) {
+            state = new GeneratorState();
+            state.setBranch(branchName);
+            try (var stage = report.start("resolve-commit")) {
+                state.setCommitSha(githubService.getCommitSha(branchName));
+                stage.addEntries((state.getCommitSha() != null) ? 1 : 0);
+            }
+            state.setInputHash(computeInputHash(excludedFonts, excludedControllers));
+            //The commit of a local checkout does not reflect uncommitted edits
+            state.setSourceFingerprint(extractor.getSourceFingerprint());
+            log.info("[RUN] Branch '{}' resolved to commit '{}'", branchName, state.getCommitSha());
+            if (!force && isUnchanged(state, lastState)) {
+                log.info("[RUN] Branch and inputs have not changed since the last run. Nothing to generate (use --force to override)");
+                return;
+            }
+        }
+        //Fetch all inputs at the resolved commit, so they match the commit recorded in the state even if the branch moves during the run
+        final String sourceRef = (state != null && state.getCommitSha() != null && sourceDirPath == null) ? state.getCommitSha() : branchName;
+
+        List<Controller> controllers;
+        List<CommInterface> interfaces;
+        if (parser.isParallel()) {
+            //Splitting the controller list requires the whole file
+            CodebuildIndex codebuild;
+            try (var stage = report.start("download-codebuild")) {
+                codebuild = (testMode) ? extractor.downloadCodebuild(testResource.toExternalForm()) : extractor.downloadCodebuildFromBranch(sourceRef);
+                stage.addBytes(codebuild.size());
+            }
+            try (var stage = report.start("parse-controllers")) {
+                controllers = parser.parseControllerCode(codebuild.getControllerSection());
+                stage.addBytes(codebuild.getControllerSection().length()).addEntries(controllers.size());
+            }
+            try (var stage = report.start("parse-interfaces")) {
+                interfaces = parser.parseInterfaceCode(codebuild.getInterfaceSection());
+                stage.addBytes(codebuild.getInterfaceSection().length()).addEntries(interfaces.size());
+            }
+        } else {
+            controllers = new ArrayList<>();
+            interfaces = new ArrayList<>();
+            //Download and parsing overlap, so both are recorded as a single stage
+            try (var stage = report.start("parse-codebuild");
+                 var reader = new CountingReader((testMode) ? extractor.openCodebuild(testResource.toExternalForm()) : extractor.openCodebuildFromBranch(sourceRef))) {
+                parser.parseCodebuild(reader, new CodebuildListener() {
+                    @Override
+                    public void onController(Controller controller) {
+                        controllers.add(controller);
+                    }
+
+                    @Override
+                    public void onInterface(CommInterface commInterface) {
+                        interfaces.add(commInterface);
+                    }
+                });
+                stage.addBytes(reader.getCount()).addEntries(controllers.size() + interfaces.size());
+            }
+            Collections.sort(controllers);
+        }
+        log.info("[RUN] Parsed {} controllers and {} interfaces from codebuild.c", controllers.size(), interfaces.size());
+        var generator = new CodeGenerator(extractor, githubService);
+        generator.setIncludeComments(includeComments);
+        generator.setConstexprFontTable(constexprFontTable);
+        generator.setFontShardCount(fontShardCount);
+        generator.setPackedFontMetadata(packedFontMetadata);
+
+        var fonts = extractor.extractFontFilesFromZip(GithubService.REPO_OWNER, sourceRef);
+        if (fonts == null)
+            throw new IllegalStateException("Unable to fetch fonts from Github service");
+        var fontFingerprints = new LinkedHashMap<String, String>();
+        for (var font : fonts)
+            fontFingerprints.put(font.name().replaceAll("\\.c", ""), String.format("%d/%d %s", font.glyphCount(), font.glyphTotal(), font.desc()));
+        var interfacesHash = sha256(interfaces.toString());
+        //The C++ font lookup is generated from the font listing of the tree, not from the font files of the archive
+        var lookupFontsHash = sha256(String.join("\n", generator.getLookupFontNames(sourceRef)));
+        if (state != null) {
+            state.setFonts(fontFingerprints);
+            state.setInterfacesHash(interfacesHash);
+            state.setLookupFontsHash(lookupFontsHash);
+        }
+
+        //Compare against the previous run to find out which artifacts are affected
+        var delta = new ManifestDelta();
+        boolean controllersChanged = true, fontsChanged = true, interfacesChanged = true, lookupFontsChanged = true;
+        Manifest previousManifest = loadManifest(generator);
+        if (previousManifest != null) {
+            delta.compareControllers(previousManifest.getControllers(), controllers);
+            //The generated code follows the declaration order, so a reordered list still needs to be regenerated
+            controllersChanged = delta.hasControllerChanges() || !generator.generateMD5Hash(controllers).equals(previousManifest.getMd5Hash());
+        }
+        if (lastState != null && lastState.getFonts() != null) {
+            delta.compareFonts(lastState.getFonts(), fontFingerprints);
+            fontsChanged = delta.hasFontChanges() || !List.copyOf(lastState.getFonts().keySet()).equals(List.copyOf(fontFingerprints.keySet()));
+        }
+        if (lastState != null) {
+            interfacesChanged = !interfacesHash.equals(lastState.getInterfacesHash());
+            lookupFontsChanged = !lookupFontsHash.equals(lastState.getLookupFontsHash());
+        }
+        delta.log(log);
+        if (force || state == null || lastState == null || !state.getInputHash().equals(lastState.getInputHash())) {
+            log.info("[DELTA] Options, exclusions or previous state changed. Regenerating all artifacts");
+            controllersChanged = fontsChanged = interfacesChanged = lookupFontsChanged = true;
+        }
+        log.info("[DELTA] Controllers changed: {}, Fonts changed: {}, Lookup fonts changed: {}, Interfaces changed: {}", controllersChanged, fontsChanged, lookupFontsChanged, interfacesChanged);
+
+        //Generate the artifacts whose inputs have changed (or that are missing from the project) next to their destination
+        try (var exporter = new ArtifactExporter(projectPath)) {
+            exporter.setDryRun(testMode);
+            if (isStale(controllersChanged, EXPORT_GLCD))
+                writeArtifact(exporter, EXPORT_GLCD, "generate-glcd", controllers.size(), out -> generator.generateGlcdCode(controllers, excludedControllers).writeTo(out));
+            if (isStale(controllersChanged, EXPORT_GLCD_CONTROLLER))
+                writeArtifact(exporter, EXPORT_GLCD_CONTROLLER, "generate-controller-enum", controllers.size(), out -> generator.generateControllerTypeEnum(controllers).writeTo(out));
+            if (isStale(controllersChanged, EXPORT_GLCD_SIZE))
+                writeArtifact(exporter, EXPORT_GLCD_SIZE, "generate-size-enum", controllers.size(), out -> generator.generateGlcdSizeEnum(controllers).writeTo(out));
+            if (isStale(fontsChanged, EXPORT_GLCD_FONT))
+                writeArtifact(exporter, EXPORT_GLCD_FONT, "generate-font-enum", fonts.size(), out -> generator.generateGlcdFontEnum(fonts, excludedFonts).writeTo(out));
+            if (packedFontMetadata && isStale(fontsChanged, EXPORT_GLCD_FONT_METADATA)) {
+                try (var stage = report.start("generate-font-metadata")) {
+                    stage.addEntries(fonts.size()).addBytes(exporter.writeBinary(EXPORT_GLCD_FONT_METADATA, out -> generator.writeGlcdFontMetadata(fonts, excludedFonts, out)));
+                }
+            }
+            if (isStale(lookupFontsChanged, EXPORT_FONT_LOOKUP))
+                writeArtifact(exporter, EXPORT_FONT_LOOKUP, "generate-font-lookup", fonts.size(), out -> generator.writeFontLookupTableCpp(sourceRef, excludedFonts, new CodeBuilder(out)));
+            if (fontShardCount > 1) {
+                for (int i = 0; i < fontShardCount; i++) {
+                    int shard = i;
+                    if (isStale(lookupFontsChanged, getFontShardExportPath(shard)))
+                        writeArtifact(exporter, getFontShardExportPath(shard), "generate-font-lookup-shard", 0, out -> generator.writeFontLookupShardCpp(sourceRef, excludedFonts, shard, new CodeBuilder(out)));
+                }
+            }
+            if (isStale(controllersChanged, EXPORT_SETUP_LOOKUP))
+                writeArtifact(exporter, EXPORT_SETUP_LOOKUP, "generate-setup-lookup", controllers.size(), out -> generator.writeSetupLookupTableCpp(controllers, excludedControllers, new CodeBuilder(out)));
+            //The source list is only known after fetching it, the file is left untouched by the export if it has not changed
+            writeArtifact(exporter, EXPORT_U8G2_CMAKE, "generate-u8g2-cmake", 0, out -> generator.writeU8g2CmakeFile(sourceRef, new CodeBuilder(out)));
+            if (isStale(interfacesChanged, EXPORT_INTERFACE_LOOKUP))
+                writeArtifact(exporter, EXPORT_INTERFACE_LOOKUP, "generate-interface-lookup", interfaces.size(), out -> generator.generateInterfaceLookup(interfaces).writeTo(out));
+            if (isStale(controllersChanged, EXPORT_MANIFEST))
+                writeArtifact(exporter, EXPORT_MANIFEST, "generate-manifest", controllers.size(), out -> generator.writeManifest(controllers, out));
+
+            if (checkClassLimits)
+                checkClassLimits(exporter);
+
+            //Artifacts no longer generated with the current options are removed along with the export
+            removeStaleFontShards(exporter);
+            if (!packedFontMetadata && exporter.delete(EXPORT_GLCD_FONT_METADATA))
+                log.info("[EXPORT] Removing stale font metadata \"{}\"", EXPORT_GLCD_FONT_METADATA);
+
+            //Move the changed artifacts into the project, all of them are restored to their previous contents if one fails
+            try (var stage = report.start("export")) {
+                log.info("Exporting {} changed file(s)", exporter.getPendingCount());
+                int exported = exporter.commit();
+                stage.addBytes(exporter.getCommittedBytes()).addEntries(exported);
+
+                if (!testMode && fontShardCount <= 1)
+                    removeEmptyFontShardDir();
+                if (state != null)
+                    saveState(state);
+            }
+        }
+    }
+
+    /**
+     * Compile the java sources as they will be exported (the generated file if it has changed, the file of the project otherwise)
+     */
+    private void checkClassLimits(ArtifactExporter exporter) throws IOException {
+        try (var stage = report.start("check-class-limits")) {
+            var sources = new LinkedHashMap<String, Path>();
+            for (String exportPath : List.of(EXPORT_GLCD, EXPORT_GLCD_CONTROLLER, EXPORT_GLCD_SIZE, EXPORT_GLCD_FONT, EXPORT_INTERFACE_LOOKUP)) {
+                Path source = exporter.getStagedPath(exportPath);
+                if (Files.isRegularFile(source))
+                    sources.put(exportPath.substring(exportPath.indexOf(JAVA_SOURCE_ROOT) + JAVA_SOURCE_ROOT.length()), source);
+            }
+            var usages = new ClassFileLimitCheck().check(sources);
+            stage.addEntries(usages.size());
+        }
+    }
+
+    private String getFontShardExportPath(int shard) {
+        return EXPORT_FONT_LOOKUP.substring(0, EXPORT_FONT_LOOKUP.lastIndexOf('/') + 1) + CodeGenerator.FONT_SHARD_DIR + "/" + CodeGenerator.getFontShardFileName(shard);
+    }
+
+    /**
+     * Remove the font lookup shards left over by a previous run which used more shards (or which was sharded when this one is not)
+     */
+    private void removeStaleFontShards(ArtifactExporter exporter) throws IOException {
+        Path shardDir = projectPath.resolve(getFontShardExportPath(0)).getParent();
+        if (!Files.isDirectory(shardDir))
+            return;
+        var current = new ArrayList<Path>();
+        if (fontShardCount > 1) {
+            for (int shard = 0; shard < fontShardCount; shard++)
+                current.add(projectPath.resolve(getFontShardExportPath(shard)));
+        }
+        try (var files = Files.newDirectoryStream(shardDir, "U8g2LookupFonts_*.cpp")) {
+            for (Path file : files) {
+                if (current.contains(file))
+                    continue;
+                exporter.delete(projectPath.relativize(file).toString());
+                log.info("[EXPORT] Removing stale font lookup shard \"{}\"", file);
+            }
+        }
+    }
+
+    /**
+     * Remove the shard directory once the export has removed its last shard. The directory is not part of the export, so failing to remove it is
+     * not an error.
+     */
+    private void removeEmptyFontShardDir() {
+        Path shardDir = projectPath.resolve(getFontShardExportPath(0)).getParent();
+        try (var files = Files.list(shardDir)) {
+            if (files.findAny().isEmpty())
+                Files.delete(shardDir);
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            log.warn("[EXPORT] Unable to remove directory \"{}\"", shardDir, e);
+        }
+    }
+
+    /**
+     * @return {@code true} if the artifact needs to be generated, either because its inputs have changed or because it does not exist in the project
+     */
+    private boolean isStale(boolean inputsChanged, String exportPath) {
+        if (inputsChanged)
+            return true;
+        if (!Files.isRegularFile(projectPath.resolve(exportPath))) {
+            log.info("[DELTA] Artifact '{}' is missing from the project", exportPath);
+            return true;
+        }
+        log.info("[DELTA] Artifact '{}' is up to date", exportPath);
+        return false;
+    }
+
+    private Manifest loadManifest(CodeGenerator generator) {
+        Path manifestPath = projectPath.resolve(EXPORT_MANIFEST);
+        if (!Files.isRegularFile(manifestPath))
+            return null;
         try {
-            log.info("Exporting generated code");
-            var tmpGlcdPath = Paths.get(tempDirWithPrefix.toString(), "Glcd.java");
-            var tmpGlcdControllerTypePath = Paths.get(tempDirWithPrefix.toString(), "GlcdController.java");
-            var tmpGlcdSizePath = Paths.get(tempDirWithPrefix.toString(), "GlcdSize.java");
-            var tmpGlcdFontEnumPath = Paths.get(tempDirWithPrefix.toString(), "GlcdFont.java");
-            var tmpU8g2LookupFontPath = Paths.get(tempDirWithPrefix.toString(), "U8g2LookupFonts.cpp");
-            var tmpU8g2LookupSetupPath = Paths.get(tempDirWithPrefix.toString(), "U8g2LookupSetup.cpp");
-            var tmpU8g2CmakeFilePath = Paths.get(tempDirWithPrefix.toString(), "u8g2.cmake");
-            var tmpControllerManifest = Paths.get(tempDirWithPrefix.toString(), "controllers.json");
-            var tmpGlcdInterfaceLookupPath = Paths.get(tempDirWithPrefix.toString(), "GlcdInterfaceLookup.java");
-
-            exportCodeToFile(tmpGlcdPath, glcdFile.toString());
-            exportCodeToFile(tmpGlcdControllerTypePath, glcdControllerTypes.toString());
-            exportCodeToFile(tmpGlcdSizePath, glcdSize.toString());
-            exportCodeToFile(tmpGlcdFontEnumPath, glcdFontEnum.toString());
-            exportCodeToFile(tmpU8g2LookupFontPath, fontCppCode);
-            exportCodeToFile(tmpU8g2LookupSetupPath, setupCppCode);
-            exportCodeToFile(tmpU8g2CmakeFilePath, u8g2CmakeFile);
-            exportCodeToFile(tmpGlcdInterfaceLookupPath, interfaceLookupCode.toString());
-
-            if (!Files.isDirectory(projectPath))
-                throw new IllegalStateException("Project path is invalid: " + projectPath);
-
-            var exportPathGlcd = Paths.get(projectPath.toString(), "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/Glcd.java");
-            var exportPathGlcdFont = Paths.get(projectPath.toString(), "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/enums/GlcdFont.java");
-            var exportPathGlcdSize = Paths.get(projectPath.toString(), "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/enums/GlcdSize.java");
-            var exportPathGlcdControllerType = Paths.get(projectPath.toString(), "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/enums/GlcdController.java");
-            var exportPathU8g2LookupFontPath = Paths.get(projectPath.toString(), "native/modules/graphics/src/main/cpp/U8g2LookupFonts.cpp");
-            var exportPathU8g2LookupSetupPath = Paths.get(projectPath.toString(), "native/modules/graphics/src/main/cpp/U8g2LookupSetup.cpp");
-            var exportPathU8g2CmakeFilePath = Paths.get(projectPath.toString(), "native/cmake/external/u8g2.cmake");
-            var exportPathManifest = Paths.get(projectPath.toString(), "docs/controllers.json");
-            var exportInterfaceLookup = Paths.get(projectPath.toString(), "drivers/glcd/src/main/java/com/ibasco/ucgdisplay/drivers/glcd/GlcdInterfaceLookup.java");
-
-            //Copy to project path
-            export(tmpGlcdPath, exportPathGlcd);
-            export(tmpGlcdControllerTypePath, exportPathGlcdControllerType);
-            export(tmpGlcdSizePath, exportPathGlcdSize);
-            export(tmpGlcdFontEnumPath, exportPathGlcdFont);
-            export(tmpU8g2LookupFontPath, exportPathU8g2LookupFontPath);
-            export(tmpU8g2LookupSetupPath, exportPathU8g2LookupSetupPath);
-            export(tmpU8g2CmakeFilePath, exportPathU8g2CmakeFilePath);
-            export(tmpGlcdInterfaceLookupPath, exportInterfaceLookup);
-
-            //Create manifest
-            log.info("[RUN] Creating manifest file at '{}'", tmpControllerManifest);
-            String manifestJson = generator.generateManifest(controllers);
-            exportCodeToFile(tmpControllerManifest, manifestJson);
-            export(tmpControllerManifest, exportPathManifest);
-        } finally {
-            log.info("[RUN] Cleaning up resources");
-            //Cleanup
-            recursiveDeleteOnExit(tempDirWithPrefix);
+            return generator.readManifest(Files.readString(manifestPath));
+        } catch (Exception e) {
+            log.warn("[RUN] Unable to read previous manifest '{}'", manifestPath, e);
+            return null;
+        }
+    }
+
+    /**
+     * Generate an artifact as a stage of the performance report. The code is streamed into a temporary file next to the destination, so it is
+     * never held in memory as a whole.
+     *
+     * @param entries
+     *         The number of input entries processed by the writer
+     */
+    private void writeArtifact(ArtifactExporter exporter, String exportPath, String stageName, long entries, ArtifactExporter.ArtifactWriter writer) throws IOException {
+        try (var stage = report.start(stageName)) {
+            stage.addEntries(entries).addBytes(exporter.write(exportPath, writer));
+        }
+        log.info("[EXPORT] Generated \"{}\"", exportPath);
+    }
+
+    private Path getStatePath() {
+        return projectPath.resolve(STATE_FILE);
+    }
+
+    private GeneratorState loadState() {
+        Path statePath = getStatePath();
+        if (!Files.isRegularFile(statePath))
+            return null;
+        try {
+            return gson.fromJson(Files.readString(statePath), GeneratorState.class);
+        } catch (Exception e) {
+            log.warn("[RUN] Unable to read state file '{}'", statePath, e);
+            return null;
+        }
+    }
+
+    private boolean isUnchanged(GeneratorState state, GeneratorState lastState) {
+        if (state.getCommitSha() == null || lastState == null)
+            return false;
+        return state.getBranch().equals(lastState.getBranch()) &&
+                state.getCommitSha().equals(lastState.getCommitSha()) &&
+                state.getInputHash().equals(lastState.getInputHash()) &&
+                Objects.equals(state.getSourceFingerprint(), lastState.getSourceFingerprint());
+    }
+
+    private void saveState(GeneratorState state) throws IOException {
+        if (state.getCommitSha() == null)
+            return;
+        state.setLastUpdated(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()));
+        Files.writeString(getStatePath(), gson.toJson(state));
+        log.info("[RUN] Saved generator state to '{}'", getStatePath());
+    }
+
+    /**
+     * Computes a hash over everything other than the upstream sources that affects the generated output
+     */
+    private String computeInputHash(List<String> excludedFonts, List<String> excludedControllers) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(String.format("version=%s;comments=%s;constexprFonts=%s;fontShards=%d;packedFonts=%s;", Application.class.getPackage().getImplementationVersion(), includeComments, constexprFontTable, fontShardCount, packedFontMetadata).getBytes(StandardCharsets.UTF_8));
+            md.update(String.join("\n", excludedFonts).getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(String.join("\n", excludedControllers).getBytes(StandardCharsets.UTF_8));
+            return toHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
+    private static String sha256(String data) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash)
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
     private List<String> getExclusions(Path path, String defaultResource) throws FileNotFoundException {
         ArrayList<String> output = new ArrayList<>();
         InputStream exclusionResource;
@@ -232,42 +664,6 @@ public class Application {
         }
     }
 
-    private void export(Path source, Path dest) throws IOException {
-        if (testMode) {
-            if (!Files.isWritable(dest))
-                throw new IllegalStateException(String.format("File '%s' will not be able to replace '%s'. No write permission", source, dest));
-            if (Files.exists(dest)) {
-                log.info("[TEST] File '{}' will be able to replace '{}'", source, dest);
-            } else {
-                log.info("[TEST] File '{}' will be copied directly to '{}'", source, dest);
-            }
-        } else {
-            Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING);
-            log.info("[EXPORT] File \"{}\" exported to project path \"{}\"", source.getFileName(), dest.toString());
-        }
-    }
-
-    private void exportCodeToFile(Path filePath, String code) throws IOException {
-        Files.writeString(filePath, code);
-        log.info("[EXPORT] File(s) saved to \"{}\"", filePath.toString());
-    }
-
-    public static void recursiveDeleteOnExit(Path path) throws IOException {
-        Files.walkFileTree(path, new SimpleFileVisitor<>() {
-            @Override
-            public FileVisitResult visitFile(Path file, @SuppressWarnings("unused") BasicFileAttributes attrs) {
-                file.toFile().deleteOnExit();
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, @SuppressWarnings("unused") BasicFileAttributes attrs) {
-                dir.toFile().deleteOnExit();
-                return FileVisitResult.CONTINUE;
-            }
-        });
-    }
-
     public static void main(String[] args) throws Exception {
         new Application().run(args);
     }
@@ -0,0 +1,345 @@
+package com.ibasco.ucgdisplay.tools;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Exports a set of generated artifacts to the project as a single unit.
+ * <p>
+ * Each artifact is streamed into a temporary file next to its destination and synced to disk. Artifacts whose contents have not changed are
+ * discarded, the others are moved into place on {@link #commit()} with an atomic rename, so readers (e.g. IDE indexers) never see a partially
+ * written file. Artifacts which are no longer generated can be removed as part of the same unit. If any of the moves or removals fail, the
+ * artifacts already replaced or removed are restored from their backups.
+ * </p>
+ * <p>
+ * In dry run mode the artifacts are written to a temporary directory and the project is left untouched.
+ * </p>
+ *
+ * @author Rafael Ibasco
+ */
+public class ArtifactExporter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactExporter.class);
+
+    private final Path baseDir;
+
+    private boolean dryRun;
+
+    private Path dryRunDir;
+
+    private final List<PendingArtifact> pending = new ArrayList<>();
+
+    private long committedBytes;
+
+    @FunctionalInterface
+    public interface ArtifactWriter {
+        void write(Writer out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface BinaryArtifactWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * @param temp
+     *         The generated file or {@code null} if the target is to be removed
+     */
+    private record PendingArtifact(Path target, Path temp, long size) {
+    }
+
+    public ArtifactExporter(Path baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * @return The total number of bytes moved into the project by the last {@link #commit()}
+     */
+    public long getCommittedBytes() {
+        return committedBytes;
+    }
+
+    /**
+     * Generate an artifact into a temporary file next to its destination. The file is synced to disk before this method returns.
+     *
+     * @param exportPath
+     *         The path of the artifact, relative to the base directory
+     * @param writer
+     *         Writes the contents of the artifact
+     *
+     * @return The size of the generated artifact in bytes
+     *
+     * @throws IOException
+     *         When the artifact could not be written
+     */
+    public long write(String exportPath, ArtifactWriter writer) throws IOException {
+        return stage(exportPath, channel -> {
+            var out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            writer.write(out);
+            out.flush();
+        });
+    }
+
+    /**
+     * Generate a binary artifact into a temporary file next to its destination
+     *
+     * @see #write(String, ArtifactWriter)
+     */
+    public long writeBinary(String exportPath, BinaryArtifactWriter writer) throws IOException {
+        return stage(exportPath, channel -> {
+            var out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            writer.write(out);
+            out.flush();
+        });
+    }
+
+    /**
+     * @return The path of the file which will be exported to the specified path: the generated file if the artifact has changed, the file of
+     * the project otherwise
+     */
+    public Path getStagedPath(String exportPath) {
+        Path target = baseDir.resolve(exportPath);
+        for (PendingArtifact artifact : pending) {
+            if (artifact.target().equals(target) && artifact.temp() != null)
+                return artifact.temp();
+        }
+        return target;
+    }
+
+    /**
+     * Remove an artifact of the project on {@link #commit()}, it is restored if the commit fails
+     *
+     * @param exportPath
+     *         The path of the artifact, relative to the base directory
+     *
+     * @return {@code true} if the artifact exists and will be removed
+     */
+    public boolean delete(String exportPath) {
+        Path target = baseDir.resolve(exportPath);
+        if (!Files.isRegularFile(target))
+            return false;
+        pending.add(new PendingArtifact(target, null, 0));
+        return true;
+    }
+
+    private long stage(String exportPath, ChannelWriter writer) throws IOException {
+        Path target = baseDir.resolve(exportPath);
+        Path temp = createTempFile(target);
+        try {
+            try (var channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer.write(channel);
+                channel.force(true);
+            }
+            long size = Files.size(temp);
+            if (Files.isRegularFile(target) && Files.mismatch(temp, target) == -1) {
+                log.info("[EXPORT] File \"{}\" has not changed. Skipped", target);
+                Files.delete(temp);
+            } else {
+                pending.add(new PendingArtifact(target, temp, size));
+            }
+            return size;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of artifacts which have changed (or are to be removed) and are waiting to be committed
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Move all pending artifacts into place and remove the deleted ones. Either all of them replace their destination or, on failure, the
+     * destinations are restored to their previous contents.
+     *
+     * @return The number of artifacts exported to (or removed from) the project
+     *
+     * @throws IOException
+     *         When an artifact could not be moved into place (after the previous contents have been restored)
+     */
+    public int commit() throws IOException {
+        committedBytes = 0;
+        if (dryRun) {
+            for (PendingArtifact artifact : pending)
+                checkWritable(artifact);
+            discardPending();
+            return 0;
+        }
+        List<PendingArtifact> replaced = new ArrayList<>();
+        List<Path> backups = new ArrayList<>();
+        try {
+            for (PendingArtifact artifact : pending) {
+                backups.add(backup(artifact.target()));
+                if (artifact.temp() == null) {
+                    Files.deleteIfExists(artifact.target());
+                    log.info("[EXPORT] Removed \"{}\"", artifact.target());
+                } else {
+                    replace(artifact.temp(), artifact.target());
+                    log.info("[EXPORT] File \"{}\" exported to project path \"{}\"", artifact.target().getFileName(), artifact.target());
+                }
+                replaced.add(artifact);
+                committedBytes += artifact.size();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("[EXPORT] Failed to export artifacts, restoring {} replaced file(s)", replaced.size());
+            rollback(replaced, backups, e);
+            committedBytes = 0;
+            discardPending();
+            throw e;
+        }
+        for (PendingArtifact artifact : replaced)
+            syncDirectory(artifact.target().getParent());
+        for (Path backup : backups) {
+            if (backup != null)
+                Files.deleteIfExists(backup);
+        }
+        pending.clear();
+        return replaced.size();
+    }
+
+    /**
+     * Discard the artifacts which have not been committed
+     */
+    @Override
+    public void close() throws IOException {
+        discardPending();
+        if (dryRunDir != null) {
+            try (Stream<Path> paths = Files.walk(dryRunDir)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                    Files.deleteIfExists(path);
+            }
+            dryRunDir = null;
+        }
+    }
+
+    private Path createTempFile(Path target) throws IOException {
+        if (dryRun) {
+            if (dryRunDir == null)
+                dryRunDir = Files.createTempDirectory("ucg-code-gen-");
+            return Files.createTempFile(dryRunDir, target.getFileName().toString() + ".", ".tmp");
+        }
+        //Files.createTempFile restricts the permissions to the owner, the exported file should get the same permissions as any other file
+        Files.createDirectories(target.getParent());
+        while (true) {
+            Path temp = target.resolveSibling(String.format(".%s.%08x.tmp", target.getFileName(), ThreadLocalRandom.current().nextInt()));
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Keep the current contents of the target, using a hard link where the file system supports it
+     *
+     * @return The path of the backup or {@code null} if the target does not exist
+     */
+    private Path backup(Path target) throws IOException {
+        if (!Files.exists(target))
+            return null;
+        Path backup = target.resolveSibling("." + target.getFileName() + ".bak");
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, target);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(target, backup, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        return backup;
+    }
+
+    private void rollback(List<PendingArtifact> replaced, List<Path> backups, Exception cause) {
+        for (int i = backups.size() - 1; i >= 0; i--) {
+            Path target = pending.get(i).target();
+            Path backup = backups.get(i);
+            try {
+                if (i >= replaced.size()) {
+                    //The artifact which failed has not been replaced
+                    if (backup != null)
+                        Files.deleteIfExists(backup);
+                    continue;
+                } else if (backup != null) {
+                    replace(backup, target);
+                } else {
+                    Files.deleteIfExists(target);
+                }
+                log.info("[EXPORT] Restored \"{}\"", target);
+            } catch (IOException | RuntimeException e) {
+                log.error("[EXPORT] Unable to restore \"{}\" (backup: {})", target, backup, e);
+                cause.addSuppressed(e);
+            }
+        }
+    }
+
+    private void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.warn("[EXPORT] Atomic move not supported for \"{}\", replacing the file non-atomically", target);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void checkWritable(PendingArtifact artifact) {
+        Path target = artifact.target();
+        Path parent = target.getParent();
+        if (artifact.temp() == null) {
+            if (parent != null && !Files.isWritable(parent))
+                throw new IllegalStateException(String.format("File '%s' will not be able to be removed. No write permission", target));
+            log.info("[TEST] File '{}' will be removed", target);
+        } else if (Files.exists(target)) {
+            if (!Files.isWritable(target))
+                throw new IllegalStateException(String.format("File '%s' will not be able to be replaced. No write permission", target));
+            log.info("[TEST] File '{}' will be replaced", target);
+        } else {
+            if (parent != null && Files.exists(parent) && !Files.isWritable(parent))
+                throw new IllegalStateException(String.format("File '%s' will not be able to be created. No write permission", target));
+            log.info("[TEST] File '{}' will be created", target);
+        }
+    }
+
+    /**
+     * Make the renames durable. Not all platforms allow opening a directory, in which case this is skipped.
+     */
+    private static void syncDirectory(Path dir) {
+        try (var channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            log.debug("[EXPORT] Unable to sync directory '{}'", dir, e);
+        }
+    }
+
+    private void discardPending() throws IOException {
+        for (PendingArtifact artifact : pending) {
+            if (artifact.temp() != null)
+                Files.deleteIfExists(artifact.temp());
+        }
+        pending.clear();
+    }
+}
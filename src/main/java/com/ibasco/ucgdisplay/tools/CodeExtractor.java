@@ -2,41 +2,73 @@ package com.ibasco.ucgdisplay.tools;
 
 import static com.ibasco.ucgdisplay.tools.util.StringUtils.isBlank;
 
+import com.ibasco.ucgdisplay.tools.metrics.PerformanceReport;
 import com.ibasco.ucgdisplay.tools.service.GithubService;
-import com.ibasco.ucgdisplay.tools.util.StringUtils;
+import com.ibasco.ucgdisplay.tools.service.HttpCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.URI;
 import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 public class CodeExtractor {
 
     private static final Logger log = LoggerFactory.getLogger(CodeExtractor.class);
 
-    private static final String START_TAG = "display_controller_list_start";
-
-    private static final String END_TAG = "display_controller_list_end";
-
     public static final String DEFAULT_CODEBUILD_URL = "https://raw.githubusercontent.com/%s/u8g2/%s/tools/codebuild/codebuild.c";
 
-    private static final String DEFAULT_MASTER_ZIP = "https://github.com/%s/u8g2/archive/master.zip";
+    private static final String PROJECT_ARCHIVE_URL = "https://github.com/%s/u8g2/archive/%s.zip";
+
+    private static final String DEFAULT_ARCHIVE_REF = "master";
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM dd, yyyy hh:mm:ss a");
 
-    private static final String FONT_DIR_PATH = "u8g2-master/tools/font/build/single_font_files/";
+    private static final String CODEBUILD_SOURCE_PATH = "tools/codebuild/codebuild.c";
+
+    private static final String FONT_SOURCE_PATH = "tools/font/build/single_font_files";
+
+    private static final String CSRC_SOURCE_PATH = "csrc";
+
+    /**
+     * The font directory relative to the root directory of the project archive, which is named after the archived ref (e.g. {@code u8g2-master/})
+     */
+    private static final String FONT_DIR_PATH = FONT_SOURCE_PATH + "/";
 
-    private static final Pattern PATTERN_INTERFACES = Pattern.compile("(?s)struct\\s*interface\\s*interface\\_list\\[\\]\\s*\\=[\\s\\r\\n]*\\{(.+?)\\}\\;");
+    private HttpCache httpCache;
 
-    public static record FontEntry(String name, String desc, String copyright, int glyphCount, int glyphTotal) {
+    private boolean spoolArchive = true;
+
+    private Path sourceDir;
+
+    private PerformanceReport report = new PerformanceReport();
+
+    public static record FontEntry(String name, String desc, String copyright, int glyphCount, int glyphTotal, String buildMode) {
         @Override
         public String toString() {
             return "FontEntry{" +
@@ -45,68 +77,369 @@ public class CodeExtractor {
                     ", copyright='" + copyright + '\'' +
                     ", glyphCount=" + glyphCount +
                     ", glyphTotal=" + glyphTotal +
+                    ", buildMode='" + buildMode + '\'' +
                     '}';
         }
     }
 
-    public String extractControllersFromBranch(String branch) throws IOException {
-        String url = String.format(DEFAULT_CODEBUILD_URL, GithubService.REPO_OWNER, branch);
-        log.info("Extracting controllers from branch: {} (URL: {})", branch, url);
-        return extractControllersFromUrl(url);
+    public HttpCache getHttpCache() {
+        return httpCache;
     }
 
-    public String extractControllersFromUrl(String url) throws IOException {
-        log.info("[DOWNLOAD-CONTROLLERS] Codebuild URL: {}", url);
+    public void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
 
-        try (var in = downloadCodebuildFromUrl(url)) {
-            log.info("[DOWNLOAD-CONTROLLERS] Successfully downloaded codebuild.c from master (Bytes: " + in.available() + ")");
-            StringBuilder controllerCode = new StringBuilder();
-            boolean startCollecting = false;
-            //Start scanning for the controllers array section
-            try (Scanner scanner = new Scanner(in)) {
-                while (scanner.hasNextLine()) {
-                    String line = scanner.nextLine();
-                    if (isBlank(line))
-                        continue;
-                    if (line.contains(START_TAG)) {
-                        startCollecting = true;
-                        continue;
-                    } else if (line.contains(END_TAG)) {
-                        startCollecting = false;
-                        continue;
-                    }
-                    if (startCollecting) {
-                        controllerCode.append(line);
-                        controllerCode.append("\n");
-                    }
-                }
+    public PerformanceReport getReport() {
+        return report;
+    }
+
+    /**
+     * @param report
+     *         The report receiving the archive download and font scan stages
+     */
+    public void setReport(PerformanceReport report) {
+        this.report = Objects.requireNonNull(report, "Report must not be null");
+    }
+
+    public boolean isSpoolArchive() {
+        return spoolArchive;
+    }
+
+    /**
+     * @param spoolArchive
+     *         When {@code true}, the project archive is saved to disk and the font entries are read directly from the central directory in parallel.
+     *         Otherwise, the whole archive is streamed sequentially.
+     */
+    public void setSpoolArchive(boolean spoolArchive) {
+        this.spoolArchive = spoolArchive;
+    }
+
+    public Path getSourceDir() {
+        return sourceDir;
+    }
+
+    /**
+     * @param sourceDir
+     *         When set, codebuild.c and the font files are read from this local u8g2 checkout instead of being downloaded
+     */
+    public void setSourceDir(Path sourceDir) {
+        this.sourceDir = sourceDir;
+    }
+
+    /**
+     * Computes a fingerprint of the inputs read from the local source directory (codebuild.c, the font files and the sources listed in the
+     * cmake file) from their paths, sizes and modification times. Unlike the commit SHA of the checkout, it also changes with uncommitted edits.
+     *
+     * @return The fingerprint or {@code null} if no local source directory is set
+     *
+     * @throws IOException
+     *         When the source directory could not be listed
+     */
+    public String getSourceFingerprint() throws IOException {
+        if (sourceDir == null)
+            return null;
+        List<Path> files = new ArrayList<>();
+        for (String path : List.of(CODEBUILD_SOURCE_PATH, FONT_SOURCE_PATH, CSRC_SOURCE_PATH)) {
+            Path input = sourceDir.resolve(path);
+            if (!Files.exists(input))
+                continue;
+            try (var paths = Files.walk(input)) {
+                paths.filter(Files::isRegularFile).forEach(files::add);
+            }
+        }
+        files.sort(Comparator.naturalOrder());
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (Path file : files) {
+                var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                md.update(String.format("%s;%d;%d%n", sourceDir.relativize(file), attributes.size(), attributes.lastModifiedTime().toMillis()).getBytes(StandardCharsets.UTF_8));
             }
-            return controllerCode.toString();
+            StringBuilder hash = new StringBuilder();
+            for (byte b : md.digest())
+                hash.append(String.format("%02x", b));
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
-    public String extractInterfacesFromUrl(String url) throws IOException {
-        log.info("[DOWNLOAD-INTERFACES] Codebuild URL: {}", url);
+    public CodebuildIndex downloadCodebuildFromBranch(String branch) throws IOException {
+        if (sourceDir != null)
+            return loadCodebuild(sourceDir.resolve(CODEBUILD_SOURCE_PATH));
+        String url = String.format(DEFAULT_CODEBUILD_URL, GithubService.REPO_OWNER, branch);
+        log.info("Downloading codebuild.c from branch: {} (URL: {})", branch, url);
+        return downloadCodebuild(url);
+    }
+
+    /**
+     * Fetches the codebuild.c file into memory once so that all sections can be extracted from the same buffer
+     *
+     * @param url
+     *         The url of the codebuild.c file
+     *
+     * @return The {@link CodebuildIndex} backed by the downloaded contents
+     *
+     * @throws IOException
+     *         When an I/O error occurs during download
+     */
+    public CodebuildIndex downloadCodebuild(String url) throws IOException {
+        log.info("[DOWNLOAD-CODEBUILD] Codebuild URL: {}", url);
         try (var in = downloadCodebuildFromUrl(url)) {
-            log.info("[DOWNLOAD-INTERFACES] Successfully downloaded codebuild.c from master (Bytes: " + in.available() + ")");
-            StringBuilder interfaceCode = new StringBuilder();
-            try (var scanner = new Scanner(in)) {
-                var res = scanner.findAll(PATTERN_INTERFACES).findFirst();
-                res.ifPresent(matchResult -> interfaceCode.append(matchResult.group(1)));
-            }
-            return interfaceCode.toString();
+            byte[] data = in.readAllBytes();
+            log.info("[DOWNLOAD-CODEBUILD] Successfully downloaded codebuild.c (Bytes: {})", data.length);
+            return new CodebuildIndex(data);
         }
     }
 
+    /**
+     * Memory-maps a local codebuild.c file
+     *
+     * @param file
+     *         The path of the codebuild.c file
+     *
+     * @return The {@link CodebuildIndex} backed by the mapped file
+     *
+     * @throws IOException
+     *         When the file could not be mapped
+     */
+    public CodebuildIndex loadCodebuild(Path file) throws IOException {
+        var data = map(file, Integer.MAX_VALUE);
+        log.info("[LOCAL-CODEBUILD] Mapped codebuild.c from '{}' (Bytes: {})", file, data.limit());
+        return new CodebuildIndex(data);
+    }
+
+    /**
+     * Opens codebuild.c of the specified branch (or of the local source directory, when set) for incremental reading
+     *
+     * @param branch
+     *         The name of the u8g2 branch
+     *
+     * @return A {@link Reader} over the contents of codebuild.c. The caller is responsible for closing it.
+     *
+     * @throws IOException
+     *         When the file could not be opened
+     * @see CodeParser#parseCodebuild(Reader, CodebuildListener)
+     */
+    public Reader openCodebuildFromBranch(String branch) throws IOException {
+        if (sourceDir != null) {
+            Path file = sourceDir.resolve(CODEBUILD_SOURCE_PATH);
+            log.info("[LOCAL-CODEBUILD] Reading codebuild.c from '{}'", file);
+            return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+        String url = String.format(DEFAULT_CODEBUILD_URL, GithubService.REPO_OWNER, branch);
+        log.info("Downloading codebuild.c from branch: {} (URL: {})", branch, url);
+        return openCodebuild(url);
+    }
+
+    /**
+     * Opens the codebuild.c file located at the specified url for incremental reading. The contents are consumed while they are being transferred.
+     *
+     * @param url
+     *         The url of the codebuild.c file
+     *
+     * @return A {@link Reader} over the contents of codebuild.c. The caller is responsible for closing it.
+     *
+     * @throws IOException
+     *         When the connection could not be established
+     */
+    public Reader openCodebuild(String url) throws IOException {
+        log.info("[DOWNLOAD-CODEBUILD] Codebuild URL: {}", url);
+        return new InputStreamReader(downloadCodebuildFromUrl(url), StandardCharsets.UTF_8);
+    }
+
+    public String extractControllersFromBranch(String branch) throws IOException {
+        return downloadCodebuildFromBranch(branch).getControllerSection().toString();
+    }
+
+    public String extractControllersFromUrl(String url) throws IOException {
+        return downloadCodebuild(url).getControllerSection().toString();
+    }
+
+    public String extractInterfacesFromUrl(String url) throws IOException {
+        return downloadCodebuild(url).getInterfaceSection().toString();
+    }
+
     private BufferedInputStream downloadCodebuildFromUrl(String url) throws IOException {
         url = (url == null) ? String.format(DEFAULT_CODEBUILD_URL, GithubService.REPO_OWNER, "master") : url;
-        return new BufferedInputStream(new URL(url).openStream());
+        return new BufferedInputStream(openStream(url));
     }
 
     public List<FontEntry> extractFontFilesFromZip(String repoOwner) throws IOException {
-        List<FontEntry> fontEntries = new ArrayList<>();
+        return extractFontFilesFromZip(repoOwner, DEFAULT_ARCHIVE_REF);
+    }
+
+    /**
+     * Extract the font entries from the project archive of the specified ref (or from the local source directory, when set)
+     *
+     * @param repoOwner
+     *         The owner of the u8g2 repository
+     * @param ref
+     *         The branch or commit SHA to download the archive of
+     *
+     * @return The list of font entries
+     *
+     * @throws IOException
+     *         When the archive could not be downloaded or read
+     */
+    public List<FontEntry> extractFontFilesFromZip(String repoOwner, String ref) throws IOException {
+        Path archive = null;
+        if (sourceDir == null && spoolArchive) {
+            String downloadUrl = String.format(PROJECT_ARCHIVE_URL, repoOwner, ref);
+            try (var stage = report.start("download-archive")) {
+                archive = (httpCache != null) ? httpCache.get(URI.create(downloadUrl)) : spoolProjectArchive(downloadUrl);
+                if (httpCache == null)
+                    stage.addBytes(Files.size(archive));
+            }
+        }
+        try (var stage = report.start("scan-fonts")) {
+            List<FontEntry> fonts;
+            if (sourceDir != null)
+                fonts = extractFontFilesFromDirectory(sourceDir.resolve(FONT_SOURCE_PATH));
+            else if (archive != null)
+                fonts = extractFontFilesFromArchive(archive);
+            else
+                fonts = extractFontFilesFromStream(repoOwner, ref);
+            if (fonts != null)
+                stage.addEntries(fonts.size());
+            return fonts;
+        } finally {
+            if (archive != null && httpCache == null)
+                Files.deleteIfExists(archive);
+        }
+    }
 
-        try (var in = downloadProjectArchiveFromRepo(repoOwner)) {
+    /**
+     * Extract the font entries of a project archive stored on disk. Only the font files listed in the central directory are inflated, by
+     * several readers sharing the {@link ZipFile}, and their headers are parsed by a {@link FontParsingPipeline}.
+     *
+     * @param archive
+     *         The path of the project archive
+     *
+     * @return The list of font entries, in the same order as they appear in the archive
+     *
+     * @throws IOException
+     *         When an I/O error occurs while reading the archive
+     */
+    public List<FontEntry> extractFontFilesFromArchive(Path archive) throws IOException {
+        try (ZipFile zipFile = new ZipFile(archive.toFile()); var pipeline = new FontParsingPipeline(FontHeaderReader::read)) {
+            List<? extends ZipEntry> fontFiles = zipFile.stream().filter(this::isFontFile).collect(Collectors.toList());
+            log.info("[DOWNLOAD-PROJECT] Extracting {} font entries from archive '{}'", fontFiles.size(), archive);
+            //Each reader inflates the entries it takes with its own stream, the results keep the order of the archive
+            int readerCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), fontFiles.size()));
+            AtomicInteger next = new AtomicInteger();
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService readers = Executors.newFixedThreadPool(readerCount, r -> {
+                Thread thread = new Thread(r, "archive-reader-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < readerCount; i++) {
+                    tasks.add(readers.submit(() -> {
+                        int index;
+                        while ((index = next.getAndIncrement()) < fontFiles.size()) {
+                            ZipEntry entry = fontFiles.get(index);
+                            var fileName = Paths.get(entry.getName()).getFileName().toString();
+                            log.debug("[DOWNLOAD-PROJECT] Processing font file: {}", fileName);
+                            try (var in = zipFile.getInputStream(entry)) {
+                                pipeline.submit(index, fileName, in.readNBytes(FontHeaderReader.MAX_HEADER_SIZE));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<Void> task : tasks)
+                    awaitReader(task);
+            } finally {
+                readers.shutdownNow();
+            }
+            return pipeline.finish();
+        }
+    }
+
+    private static void awaitReader(Future<Void> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the archive", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException("Archive reader failed", e.getCause());
+        }
+    }
+
+    /**
+     * Extract the font entries from a local font directory. Only the header region of each font file is mapped into memory.
+     *
+     * @param fontDir
+     *         The directory containing the single font files
+     *
+     * @return The list of font entries, sorted by file name
+     *
+     * @throws IOException
+     *         When an I/O error occurs while reading the directory
+     */
+    public List<FontEntry> extractFontFilesFromDirectory(Path fontDir) throws IOException {
+        List<Path> fontFiles;
+        try (var files = Files.list(fontDir)) {
+            fontFiles = files.filter(p -> p.getFileName().toString().startsWith("u8g2_font_") && Files.isRegularFile(p))
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .collect(Collectors.toList());
+        }
+        log.info("[LOCAL-FONTS] Extracting {} font entries from directory '{}'", fontFiles.size(), fontDir);
+        try {
+            return fontFiles.parallelStream()
+                    .map(file -> {
+                        try {
+                            return FontHeaderReader.read(file.getFileName().toString(), map(file, FontHeaderReader.MAX_HEADER_SIZE));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("Unable to read font file: " + file, e);
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, long maxSize) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), maxSize));
+        }
+    }
+
+    private boolean isFontFile(ZipEntry entry) {
+        var entryName = entry.getName();
+        int start = entryName.indexOf('/') + 1;
+        if (entry.isDirectory() || start == 0 || !entryName.regionMatches(true, start, FONT_DIR_PATH, 0, FONT_DIR_PATH.length()))
+            return false;
+        //only process font files starting with u8g2_font_ that are directly under the font directory
+        int nameStart = start + FONT_DIR_PATH.length();
+        return entryName.indexOf('/', nameStart) < 0 && entryName.startsWith("u8g2_font_", nameStart);
+    }
+
+    private Path spoolProjectArchive(String downloadUrl) throws IOException {
+        log.info("[DOWNLOAD-PROJECT] Started downloading project archive from '{}'", downloadUrl);
+        Path archive = Files.createTempFile("u8g2-", ".zip");
+        try (var in = openStream(downloadUrl)) {
+            long size = Files.copy(in, archive, StandardCopyOption.REPLACE_EXISTING);
+            log.info("[DOWNLOAD-PROJECT] Successfully downloaded project archive to '{}' (Bytes: {})", archive, size);
+            return archive;
+        } catch (IOException e) {
+            Files.deleteIfExists(archive);
+            throw e;
+        }
+    }
+
+    private List<FontEntry> extractFontFilesFromStream(String repoOwner, String ref) throws IOException {
+        try (var in = downloadProjectArchiveFromRepo(repoOwner, ref)) {
             if (in == null) {
                 log.warn("[DOWNLOAD-PROJECT] No archive was downloaded");
                 return null;
@@ -114,14 +447,14 @@ public class CodeExtractor {
 
             boolean startProcessing = false;
 
-            try (ZipInputStream zipIn = new ZipInputStream(in)) {
+            try (ZipInputStream zipIn = new ZipInputStream(in); var pipeline = new FontParsingPipeline(FontHeaderReader::read)) {
                 log.info("[DOWNLOAD-PROJECT] Extracting font entries from downloaded file");
                 ZipEntry zipEntry;
                 while ((zipEntry = zipIn.getNextEntry()) != null) {
                     try {
                         var entryName = zipEntry.getName();
                         if (zipEntry.isDirectory()) {
-                            if (FONT_DIR_PATH.equalsIgnoreCase(entryName)) {
+                            if (FONT_DIR_PATH.equalsIgnoreCase(entryName.substring(entryName.indexOf('/') + 1))) {
                                 log.info("[DOWNLOAD-PROJECT] Start processing font files in directory: {}", entryName);
                                 startProcessing = true;
                                 continue;
@@ -136,72 +469,41 @@ public class CodeExtractor {
                         //only process font files starting with u8g2_font_
                         if (fileName.startsWith("u8g2_font_")) {
                             log.debug("[DOWNLOAD-PROJECT] Processing font file: {}", fileName);
-                            FontEntry fontData = processFontData(zipIn, fileName);
-                            if (fontData != null)
-                                fontEntries.add(fontData);
+                            pipeline.submit(fileName, zipIn.readNBytes(FontHeaderReader.MAX_HEADER_SIZE));
                         }
                     } finally {
                         zipIn.closeEntry();
                     }
                 }
+                return pipeline.finish();
             }
         }
-        return fontEntries;
-    }
-
-    private FontEntry processFontData(ZipInputStream is, String fileName) throws IOException {
-        var scanner = new Scanner(is);
-        var commentPattern = Pattern.compile("(?s)\\/\\*.*?\\*\\/");
-        var res = scanner.findAll(commentPattern).findFirst();
-        String contents = null;
-        if (res.isPresent())
-            contents = res.get().group();
-        //Strip comment start/end delimeters
-        if (contents != null) {
-            contents = contents.replaceAll("\\/\\*", "");
-            contents = contents.replaceAll("\\*\\/", "");
-            var arr = contents.trim().split("\\n");
-            if (arr.length >= 4) {
-                String desc = normalizeFontDesc(extractValue(arr[0]));
-                String copyright = extractValue(arr[1]);
-                String glyphs = extractValue(arr[2]);
-                //String buildMode = extractValue(arr[3]);
-                var glyphArr = glyphs.split("/");
-                int glyphCount = -1;
-                int glyphTotal = -1;
-                if (glyphArr.length >= 2) {
-                    glyphCount = !StringUtils.isBlank(glyphArr[0]) ? Integer.parseInt(glyphArr[0]) : -1;
-                    glyphTotal = !StringUtils.isBlank(glyphArr[1]) ? Integer.parseInt(glyphArr[1]) : -1;
-                }
-                return new FontEntry(fileName, desc, copyright, glyphCount, glyphTotal);
-            } else {
-                throw new IllegalStateException("Invalid array length for " + fileName + " = " + arr.length);
-            }
-        }
-        return null;
     }
 
-    private String extractValue(String data) {
-        if (!data.contains(":"))
-            return data;
-        return data.split(":")[1].trim();
-    }
-
-    private String normalizeFontDesc(String data) {
-        return data.replaceAll("-", " ").replaceAll("_", " ").trim();
+    public InputStream downloadProjectArchiveFromRepo(String repoOwner) throws IOException {
+        return downloadProjectArchiveFromRepo(repoOwner, DEFAULT_ARCHIVE_REF);
     }
 
-    public InputStream downloadProjectArchiveFromRepo(String repoOwner) throws IOException {
-        String downloadUrl = String.format(DEFAULT_MASTER_ZIP, repoOwner);
+    public InputStream downloadProjectArchiveFromRepo(String repoOwner, String ref) throws IOException {
+        String downloadUrl = String.format(PROJECT_ARCHIVE_URL, repoOwner, ref);
         log.info("[DOWNLOAD-PROJECT] Started downloading project archive from '{}'", downloadUrl);
-        var in = new BufferedInputStream(new URL(downloadUrl).openStream());
+        var in = new BufferedInputStream(openStream(downloadUrl));
         if (in.available() > 0) {
-            log.info("[DOWNLOAD-PROJECT] Successfully downloaded project archive from master (Bytes: " + in.available() + ")");
+            log.info("[DOWNLOAD-PROJECT] Successfully downloaded project archive from " + ref + " (Bytes: " + in.available() + ")");
             return in;
         }
         return null;
     }
 
+    /**
+     * Opens the url through the {@link HttpCache} when one is configured. Non-http(s) urls (e.g. test resources) are always opened directly.
+     */
+    private InputStream openStream(String url) throws IOException {
+        if (httpCache != null && url.startsWith("http"))
+            return httpCache.getInputStream(URI.create(url));
+        return new URL(url).openStream();
+    }
+
     private String getDefault(int index, String[] args, String defaultArg) {
         if (args.length > 0 && (index <= (args.length - 1))) {
             if (!isBlank(args[index]))
@@ -15,6 +15,7 @@ import com.ibasco.ucgdisplay.tools.beans.*;
 import com.ibasco.ucgdisplay.tools.service.GithubService;
 import com.ibasco.ucgdisplay.tools.util.CodeBuilder;
 import com.ibasco.ucgdisplay.tools.util.StringUtils;
+import com.ibasco.ucgdisplay.tools.util.ZonedDateTimeAdapter;
 
 import static com.ibasco.ucgdisplay.tools.util.StringUtils.formatVendorName;
 
@@ -23,7 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.lang.model.element.Modifier;
-import java.io.IOException;
+import java.io.*;
 import java.lang.reflect.Type;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
@@ -32,7 +33,13 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
@@ -44,7 +51,46 @@ public class CodeGenerator {
 
     private static final Logger log = LoggerFactory.getLogger(CodeGenerator.class);
 
-    private final GithubService githubService = new GithubService();
+    private static final CodeBuilder.Template FONT_MAP_ENTRY = CodeBuilder.Template.compile("font_map[\"%s\"] = %s;");
+
+    private static final CodeBuilder.Template EXCLUDED_FONT_MAP_ENTRY = CodeBuilder.Template.compile("//Excluded: font_map[\"%s\"] = %s;");
+
+    private static final CodeBuilder.Template FONT_SHARD_ENTRY = CodeBuilder.Template.compile("add_font(context, \"%s\", %s);");
+
+    private static final CodeBuilder.Template EXCLUDED_FONT_SHARD_ENTRY = CodeBuilder.Template.compile("//Excluded: add_font(context, \"%s\", %s);");
+
+    /**
+     * The shards only depend on the u8g2 headers, the fonts are registered through a callback instead of the map type of U8g2Hal.h
+     */
+    private static final String FONT_SHARD_CALLBACK_TYPEDEF = "typedef void (*u8g2_font_shard_add_t)(void *context, const char *name, const uint8_t *font);";
+
+    private static final CodeBuilder.Template FONT_TABLE_ENTRY = CodeBuilder.Template.compile("{\"%s\", %s},");
+
+    private static final CodeBuilder.Template EXCLUDED_FONT_TABLE_ENTRY = CodeBuilder.Template.compile("//Excluded: {\"%s\", %s},");
+
+    /**
+     * The directory of the font lookup shards, relative to the directory of {@code U8g2LookupFonts.cpp}
+     */
+    public static final String FONT_SHARD_DIR = "fonts";
+
+    public static final int MAX_FONT_SHARDS = 64;
+
+    /**
+     * The name of the font metadata resource, located in the package of the font enum
+     */
+    public static final String FONT_METADATA_RESOURCE = "GlcdFont.bin";
+
+    private static final int FONT_METADATA_MAGIC = 0x474C4644;
+
+    private static final int FONT_METADATA_VERSION = 1;
+
+    private static final CodeBuilder.Template CMAKE_FONT_SHARD_ENTRY = CodeBuilder.Template.compile("\"${CMAKE_CURRENT_LIST_DIR}/../../modules/graphics/src/main/cpp/%s/%s\"");
+
+    private static final CodeBuilder.Template SETUP_MAP_ENTRY = CodeBuilder.Template.compile("setup_map[\"%s\"] = %s;");
+
+    private static final CodeBuilder.Template CMAKE_SOURCE_ENTRY = CodeBuilder.Template.compile("\"${SOURCE_DIR}/csrc/%s\"");
+
+    private final GithubService githubService;
 
     private List<String> fontCache = new ArrayList<>();
 
@@ -54,16 +100,27 @@ public class CodeGenerator {
 
     private String lastU8g2Branch;
 
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeAdapter()).create();
 
     private boolean includeComments;
 
+    private boolean constexprFontTable;
+
+    private int fontShardCount = 1;
+
+    private boolean packedFontMetadata;
+
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.RFC_1123_DATE_TIME;
 
     private final CodeExtractor extractor;
 
     public CodeGenerator(CodeExtractor extractor) {
+        this(extractor, new GithubService());
+    }
+
+    public CodeGenerator(CodeExtractor extractor, GithubService githubService) {
         this.extractor = extractor;
+        this.githubService = githubService;
     }
 
     public boolean isIncludeComments() {
@@ -74,6 +131,48 @@ public class CodeGenerator {
         this.includeComments = includeComments;
     }
 
+    public boolean isConstexprFontTable() {
+        return constexprFontTable;
+    }
+
+    /**
+     * @param constexprFontTable
+     *         {@code true} if the font lookup should be generated as a sorted {@code constexpr} table searched by {@code U8g2hal_FindFont},
+     *         instead of the {@code std::map} populated at startup by {@code U8g2hal_InitFonts}
+     */
+    public void setConstexprFontTable(boolean constexprFontTable) {
+        this.constexprFontTable = constexprFontTable;
+    }
+
+    public boolean isPackedFontMetadata() {
+        return packedFontMetadata;
+    }
+
+    /**
+     * @param packedFontMetadata
+     *         {@code true} if the constants of the font enum should not carry any fields. Their metadata is then written to a separate resource
+     *         (see {@link #writeGlcdFontMetadata(List, List, OutputStream)}) which is only decoded when first accessed.
+     */
+    public void setPackedFontMetadata(boolean packedFontMetadata) {
+        this.packedFontMetadata = packedFontMetadata;
+    }
+
+    public int getFontShardCount() {
+        return fontShardCount;
+    }
+
+    /**
+     * @param fontShardCount
+     *         The number of translation units the font lookup is split into, so they can be compiled in parallel. With a value greater than 1,
+     *         {@code U8g2LookupFonts.cpp} only dispatches to the shards (see {@link #writeFontLookupShardCpp(String, List, int, CodeBuilder)})
+     *         and the shards are compiled by the {@code u8g2_font_lookup} object library of the generated cmake file.
+     */
+    public void setFontShardCount(int fontShardCount) {
+        if (fontShardCount < 1 || fontShardCount > MAX_FONT_SHARDS)
+            throw new IllegalArgumentException(String.format("Font shard count must be between 1 and %d", MAX_FONT_SHARDS));
+        this.fontShardCount = fontShardCount;
+    }
+
     public JavaFile generateInterfaceLookup(List<CommInterface> interfaces) {
         var classBuilder = TypeSpec.classBuilder("GlcdInterfaceLookup").addModifiers(Modifier.PUBLIC);
         var staticBlockBuilder = CodeBlock.builder();
@@ -123,11 +222,43 @@ public class CodeGenerator {
     }
 
     public String generateManifest(List<Controller> controllers) {
+        StringBuilder json = new StringBuilder();
+        writeManifest(controllers, json);
+        return json.toString();
+    }
+
+    /**
+     * Serialize the manifest directly to the specified output
+     */
+    public void writeManifest(List<Controller> controllers, Appendable out) {
         Manifest manifest = new Manifest();
         manifest.setControllers(controllers);
         manifest.setLastUpdated(ZonedDateTime.now());
         manifest.setMd5Hash(generateMD5Hash(controllers));
-        return gson.toJson(manifest, Manifest.class);
+        gson.toJson(manifest, Manifest.class, out);
+    }
+
+    /**
+     * Reads a manifest previously created by {@link #generateManifest(List)}. The references from the vendors and configurations back to their
+     * owners are restored.
+     *
+     * @param json
+     *         The contents of the manifest
+     *
+     * @return The {@link Manifest}
+     */
+    public Manifest readManifest(String json) {
+        Manifest manifest = gson.fromJson(json, Manifest.class);
+        if (manifest == null || manifest.getControllers() == null)
+            throw new IllegalStateException("Invalid manifest. No controllers found");
+        for (Controller controller : manifest.getControllers()) {
+            for (Vendor vendor : controller.getVendorList()) {
+                vendor.setController(controller);
+                for (VendorConfig config : vendor.getVendorConfigs())
+                    config.setVendor(vendor);
+            }
+        }
+        return manifest;
     }
 
     public String generateMD5Hash(List<Controller> controllers) {
@@ -220,7 +351,7 @@ public class CodeGenerator {
                 int configSize = vendor.getVendorConfigs().size();
                 for (int i = 0; i < configSize; i++) {
                     VendorConfig config = vendor.getVendorConfigs().get(i);
-                    String commInts = config.getSupportedInterfaces().stream().map(Comm::getName).distinct().collect(Collectors.joining(" | "));
+                    String commInts = GlcdCommInfo.toExpression(config.getSupportedInterfaceMask(), " | ");
                     setupCodeBlock.add("\n    new $T($S, $L)$L", GlcdSetupInfo.class, StringUtils.toU8g2SetupName(config), commInts, (configSize > 1 && i < (configSize - 1)) ? "," : "");
                 }
 
@@ -290,24 +421,36 @@ public class CodeGenerator {
                         .returns(TypeName.INT)
                         .build()
         );
+        //Vendors share sizes, each size is declared once (ordered by tile width, then tile height) and keyed by (tileWidth << 8 | tileHeight)
+        TreeMap<Integer, String> sizes = new TreeMap<>();
+        for (Controller controller : controllers) {
+            for (Vendor vendor : controller.getVendorList()) {
+                if (vendor.getTileWidth() < 0 || vendor.getTileWidth() > 0xFF || vendor.getTileHeight() < 0 || vendor.getTileHeight() > 0xFF)
+                    throw new IllegalStateException(String.format("Tile size %dx%d of vendor '%s' (controller '%s') is out of range", vendor.getTileWidth(), vendor.getTileHeight(), vendor.getName(), controller.getName()));
+                int key = (vendor.getTileWidth() << 8) | vendor.getTileHeight();
+                sizes.putIfAbsent(key, String.format("SIZE_%dx%d", vendor.getTileWidth() * 8, vendor.getTileHeight() * 8));
+            }
+        }
+        for (var size : sizes.entrySet())
+            enumSpec.addEnumConstant(size.getValue(), TypeSpec.anonymousClassBuilder("$L, $L", size.getKey() >> 8, size.getKey() & 0xFF).build());
+        //Constant time lookup without allocation
+        CodeBlock.Builder lookup = CodeBlock.builder()
+                .beginControlFlow("if ((tileWidth & ~0xFF) != 0 || (tileHeight & ~0xFF) != 0)")
+                .addStatement("return null")
+                .endControlFlow()
+                .beginControlFlow("switch ((tileWidth << 8) | tileHeight)");
+        for (var size : sizes.entrySet())
+            lookup.add("case $L:\n$>return $N;\n$<", String.format("0x%04x", size.getKey()), size.getValue());
+        lookup.add("default:\n$>return null;\n$<").endControlFlow();
         enumSpec.addMethod(
                 MethodSpec.methodBuilder("get")
                         .returns(GlcdSize.class)
                         .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                         .addParameter(TypeName.INT, "tileWidth")
                         .addParameter(TypeName.INT, "tileHeight")
-                        .addStatement("return $T.stream(GlcdSize.values())\n" +
-                                "                .filter(p -> (p.getTileWidth() == tileWidth) && (p.getTileHeight() == tileHeight))\n" +
-                                "                .findFirst().orElse(null)", Arrays.class)
+                        .addCode(lookup.build())
                         .build()
         );
-        for (Controller controller : controllers) {
-            for (Vendor vendor : controller.getVendorList()) {
-                int width = vendor.getTileWidth() * 8;
-                int height = vendor.getTileHeight() * 8;
-                enumSpec.addEnumConstant(String.format("SIZE_%dx%d", width, height), TypeSpec.anonymousClassBuilder("$L, $L", vendor.getTileWidth(), vendor.getTileHeight()).build());
-            }
-        }
         JavaFile.Builder javaBuilder = JavaFile.builder("com.ibasco.ucgdisplay.drivers.glcd.enums", enumSpec.build());
         if (includeComments)
             javaBuilder.addFileComment(generateFileComment(false));
@@ -315,100 +458,572 @@ public class CodeGenerator {
     }
 
     public JavaFile generateGlcdFontEnum(String branchName, List<String> exclusions) throws IOException {
+        return generateGlcdFontEnum(extractor.extractFontFilesFromZip(GithubService.REPO_OWNER, branchName), exclusions);
+    }
+
+    /**
+     * Generate the font enum from font entries that have already been extracted
+     *
+     * @param fonts
+     *         The font entries
+     * @param exclusions
+     *         The keys of the fonts to exclude
+     */
+    public JavaFile generateGlcdFontEnum(List<CodeExtractor.FontEntry> fonts, List<String> exclusions) {
         TypeSpec.Builder enumSpec = TypeSpec.enumBuilder("GlcdFont").addModifiers(Modifier.PUBLIC);
+        var selectedFonts = selectFonts(fonts, exclusions);
+
+        if (packedFontMetadata) {
+            addPackedFontMetadata(enumSpec);
+            for (var font : selectedFonts.values())
+                enumSpec.addEnumConstant(getFontConstantName(font));
+        } else {
+            enumSpec.addField(String.class, "fontKey", Modifier.PRIVATE);
+            enumSpec.addField(String.class, "fontDescription", Modifier.PRIVATE);
+            enumSpec.addField(Integer.class, "glyphCount", Modifier.PRIVATE);
+            enumSpec.addField(Integer.class, "glyphTotal", Modifier.PRIVATE);
+
+            enumSpec.addMethod(MethodSpec.constructorBuilder()
+                    .addParameter(TypeName.get(String.class), "fontKey")
+                    .addParameter(TypeName.INT, "glyphCount")
+                    .addParameter(TypeName.INT, "glyphTotal")
+                    .addParameter(TypeName.get(String.class), "fontDescription")
+                    .addStatement("this.fontKey = fontKey")
+                    .addStatement("this.glyphCount = glyphCount")
+                    .addStatement("this.glyphTotal = glyphTotal")
+                    .addStatement("this.fontDescription = fontDescription")
+                    .build());
+
+            enumSpec.addMethod(
+                    MethodSpec.methodBuilder("getKey")
+                            .addModifiers(Modifier.PUBLIC)
+                            .returns(String.class)
+                            .addStatement("return fontKey")
+                            .build()
+            );
+            enumSpec.addMethod(
+                    MethodSpec.methodBuilder("getGlyphCount")
+                            .addModifiers(Modifier.PUBLIC)
+                            .returns(TypeName.INT)
+                            .addStatement("return glyphCount")
+                            .build()
+            );
+            enumSpec.addMethod(
+                    MethodSpec.methodBuilder("getGlyphTotal")
+                            .addModifiers(Modifier.PUBLIC)
+                            .returns(TypeName.INT)
+                            .addStatement("return glyphTotal")
+                            .build()
+            );
+            enumSpec.addMethod(
+                    MethodSpec.methodBuilder("getDescription")
+                            .addModifiers(Modifier.PUBLIC)
+                            .returns(String.class)
+                            .addStatement("return fontDescription")
+                            .build()
+            );
+            for (var entry : selectedFonts.entrySet()) {
+                var font = entry.getValue();
+                enumSpec.addEnumConstant(getFontConstantName(font), TypeSpec.anonymousClassBuilder("$S, $L, $L, $S", entry.getKey(), font.glyphCount(), font.glyphTotal(), font.desc()).build());
+            }
+        }
+        addFontKeyIndex(enumSpec);
+        JavaFile.Builder javaBuilder = JavaFile.builder("com.ibasco.ucgdisplay.drivers.glcd.enums", enumSpec.build());
+        if (includeComments)
+            javaBuilder.addFileComment(generateFileComment(false));
+        return javaBuilder.build();
+    }
+
+    /**
+     * Write the metadata of the fonts for the font enum generated in packed mode (see {@link #setPackedFontMetadata(boolean)}).
+     * <p>
+     * Format (big-endian, variable length integers are unsigned LEB128):
+     * </p>
+     * <pre>
+     * int    magic (FONT_METADATA_MAGIC)
+     * byte   version (FONT_METADATA_VERSION)
+     * varint string count, followed by the strings in modified UTF-8 (see {@link DataOutputStream#writeUTF(String)})
+     * varint font count, followed by the fonts in ordinal order:
+     *        varint key (string index), varint description (string index + 1, 0 if none), varint glyph count, varint glyph total
+     * </pre>
+     */
+    public void writeGlcdFontMetadata(List<CodeExtractor.FontEntry> fonts, List<String> exclusions, OutputStream output) throws IOException {
+        var selectedFonts = selectFonts(fonts, exclusions);
+        //Descriptions are shared by all the variants of a face, each distinct string is only stored once
+        var strings = new LinkedHashMap<String, Integer>();
+        for (var entry : selectedFonts.entrySet()) {
+            strings.putIfAbsent(entry.getKey(), strings.size());
+            if (entry.getValue().desc() != null)
+                strings.putIfAbsent(entry.getValue().desc(), strings.size());
+        }
+        var out = new DataOutputStream(output);
+        out.writeInt(FONT_METADATA_MAGIC);
+        out.writeByte(FONT_METADATA_VERSION);
+        writeVarInt(out, strings.size());
+        for (String value : strings.keySet())
+            out.writeUTF(value);
+        writeVarInt(out, selectedFonts.size());
+        for (var entry : selectedFonts.entrySet()) {
+            var font = entry.getValue();
+            writeVarInt(out, strings.get(entry.getKey()));
+            writeVarInt(out, (font.desc() == null) ? 0 : strings.get(font.desc()) + 1);
+            writeVarInt(out, font.glyphCount());
+            writeVarInt(out, font.glyphTotal());
+        }
+        out.flush();
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative value: " + value);
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * The constants are declared in the order the fonts were extracted, so the ordinals of the existing fonts do not change
+     *
+     * @return The fonts which are not excluded keyed by font key, in declaration order
+     */
+    private LinkedHashMap<String, CodeExtractor.FontEntry> selectFonts(List<CodeExtractor.FontEntry> fonts, List<String> exclusions) {
+        if (fonts == null)
+            throw new IllegalStateException("Unable to fetch fonts from Github service");
+        var selectedFonts = new LinkedHashMap<String, CodeExtractor.FontEntry>();
+        for (var font : fonts) {
+            String fontKey = font.name().replaceAll("\\.c", "");
+            if (exclusions.contains(fontKey)) {
+                log.debug("generateGlcdFontEnum() : Excluded font: {}", font);
+                continue;
+            }
+            selectedFonts.put(fontKey, font);
+        }
+        return selectedFonts;
+    }
+
+    private static String getFontConstantName(CodeExtractor.FontEntry font) {
+        return font.name().replaceAll("u8g2_|\\.c", "").toUpperCase();
+    }
+
+    /**
+     * The constants have no fields, their metadata is read from the {@link #FONT_METADATA_RESOURCE} resource by a nested holder class the first
+     * time it is needed
+     */
+    private void addPackedFontMetadata(TypeSpec.Builder enumSpec) {
+        ClassName glcdFont = ClassName.get("com.ibasco.ucgdisplay.drivers.glcd.enums", "GlcdFont");
+        ClassName metadata = glcdFont.nestedClass("Metadata");
+
+        enumSpec.addMethod(accessor("getKey", String.class, "return $T.INSTANCE.keys[ordinal()]", metadata));
+        enumSpec.addMethod(accessor("getGlyphCount", int.class, "return $T.INSTANCE.glyphCounts[ordinal()]", metadata));
+        enumSpec.addMethod(accessor("getGlyphTotal", int.class, "return $T.INSTANCE.glyphTotals[ordinal()]", metadata));
+        enumSpec.addMethod(accessor("getDescription", String.class, "return $T.INSTANCE.descriptions[ordinal()]", metadata));
+
+        TypeSpec.Builder metadataSpec = TypeSpec.classBuilder("Metadata").addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+        metadataSpec.addField(FieldSpec.builder(metadata, "INSTANCE", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("load()").build());
+        metadataSpec.addField(String[].class, "keys", Modifier.PRIVATE, Modifier.FINAL);
+        metadataSpec.addField(String[].class, "descriptions", Modifier.PRIVATE, Modifier.FINAL);
+        metadataSpec.addField(int[].class, "glyphCounts", Modifier.PRIVATE, Modifier.FINAL);
+        metadataSpec.addField(int[].class, "glyphTotals", Modifier.PRIVATE, Modifier.FINAL);
+        metadataSpec.addMethod(MethodSpec.constructorBuilder()
+                                       .addModifiers(Modifier.PRIVATE)
+                                       .addParameter(int.class, "count")
+                                       .addStatement("keys = new String[count]")
+                                       .addStatement("descriptions = new String[count]")
+                                       .addStatement("glyphCounts = new int[count]")
+                                       .addStatement("glyphTotals = new int[count]")
+                                       .build());
+        metadataSpec.addMethod(MethodSpec.methodBuilder("load")
+                                       .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                       .returns(metadata)
+                                       .addStatement("$T resource = $T.class.getResourceAsStream($S)", InputStream.class, glcdFont, FONT_METADATA_RESOURCE)
+                                       .beginControlFlow("if (resource == null)")
+                                       .addStatement("throw new $T($S)", IllegalStateException.class, "Font metadata resource '" + FONT_METADATA_RESOURCE + "' not found")
+                                       .endControlFlow()
+                                       .beginControlFlow("try ($T in = new $T(new $T(resource)))", DataInputStream.class, DataInputStream.class, BufferedInputStream.class)
+                                       .beginControlFlow("if (in.readInt() != $L || in.readUnsignedByte() != $L)", String.format("0x%08X", FONT_METADATA_MAGIC), FONT_METADATA_VERSION)
+                                       .addStatement("throw new $T($S)", IllegalStateException.class, "Invalid font metadata resource '" + FONT_METADATA_RESOURCE + "'")
+                                       .endControlFlow()
+                                       .addStatement("String[] strings = new String[readVarInt(in)]")
+                                       .beginControlFlow("for (int i = 0; i < strings.length; i++)")
+                                       .addStatement("strings[i] = in.readUTF()")
+                                       .endControlFlow()
+                                       .addStatement("int count = readVarInt(in)")
+                                       .beginControlFlow("if (count != VALUES.length)")
+                                       .addStatement("throw new $T($T.format($S, count, VALUES.length))", IllegalStateException.class, String.class, "Font metadata resource has %d entries, expected %d")
+                                       .endControlFlow()
+                                       .addStatement("$T metadata = new $T(count)", metadata, metadata)
+                                       .beginControlFlow("for (int i = 0; i < count; i++)")
+                                       .addStatement("metadata.keys[i] = strings[readVarInt(in)]")
+                                       .addStatement("int description = readVarInt(in)")
+                                       .addStatement("metadata.descriptions[i] = (description == 0) ? null : strings[description - 1]")
+                                       .addStatement("metadata.glyphCounts[i] = readVarInt(in)")
+                                       .addStatement("metadata.glyphTotals[i] = readVarInt(in)")
+                                       .endControlFlow()
+                                       .addStatement("return metadata")
+                                       .nextControlFlow("catch ($T e)", IOException.class)
+                                       .addStatement("throw new $T(e)", UncheckedIOException.class)
+                                       .endControlFlow()
+                                       .build());
+        metadataSpec.addMethod(MethodSpec.methodBuilder("readVarInt")
+                                       .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                       .returns(int.class)
+                                       .addParameter(DataInputStream.class, "in")
+                                       .addException(IOException.class)
+                                       .addStatement("int value = 0")
+                                       .beginControlFlow("for (int shift = 0; ; shift += 7)")
+                                       .addStatement("int b = in.readUnsignedByte()")
+                                       .addStatement("value |= (b & 0x7F) << shift")
+                                       .beginControlFlow("if ((b & 0x80) == 0)")
+                                       .addStatement("return value")
+                                       .endControlFlow()
+                                       .endControlFlow()
+                                       .build());
+        enumSpec.addType(metadataSpec.build());
+    }
 
-        enumSpec.addField(String.class, "fontKey", Modifier.PRIVATE);
-        enumSpec.addField(String.class, "fontDescription", Modifier.PRIVATE);
-        enumSpec.addField(Integer.class, "glyphCount", Modifier.PRIVATE);
-        enumSpec.addField(Integer.class, "glyphTotal", Modifier.PRIVATE);
-
-        enumSpec.addMethod(MethodSpec.constructorBuilder()
-                .addParameter(TypeName.get(String.class), "fontKey")
-                .addParameter(TypeName.INT, "glyphCount")
-                .addParameter(TypeName.INT, "glyphTotal")
-                .addParameter(TypeName.get(String.class), "fontDescription")
-                .addStatement("this.fontKey = fontKey")
-                .addStatement("this.glyphCount = glyphCount")
-                .addStatement("this.glyphTotal = glyphTotal")
-                .addStatement("this.fontDescription = fontDescription")
-                .build());
+    private static MethodSpec accessor(String name, Class<?> returnType, String statement, Object... args) {
+        return MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(returnType)
+                .addStatement(statement, args)
+                .build();
+    }
 
+    /**
+     * Add the allocation-free lookups of the font enum. The index is built from the constants by a nested holder class the first time a lookup is
+     * used, instead of being generated as tables which would add to the static initializer of the enum.
+     */
+    private void addFontKeyIndex(TypeSpec.Builder enumSpec) {
+        ClassName glcdFont = ClassName.get("com.ibasco.ucgdisplay.drivers.glcd.enums", "GlcdFont");
+        ClassName keyIndex = glcdFont.nestedClass("KeyIndex");
+        TypeName fontList = ParameterizedTypeName.get(ClassName.get(List.class), glcdFont);
+        TypeName fontMap = ParameterizedTypeName.get(ClassName.get(Map.class), ClassName.get(String.class), glcdFont);
+        TypeName fontListMap = ParameterizedTypeName.get(ClassName.get(Map.class), ClassName.get(String.class), fontList);
+
+        enumSpec.addField(FieldSpec.builder(ArrayTypeName.of(glcdFont), "VALUES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                  .initializer("values()")
+                                  .build());
         enumSpec.addMethod(
-                MethodSpec.methodBuilder("getKey")
-                        .addModifiers(Modifier.PUBLIC)
-                        .returns(String.class)
-                        .addStatement("return fontKey")
+                MethodSpec.methodBuilder("fromKey")
+                        .addJavadoc("Find a font by its key (e.g. {@code u8g2_font_helvB08_tf})\n\n@return The font or {@code null} if there is no font with the specified key\n")
+                        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                        .returns(glcdFont)
+                        .addParameter(String.class, "key")
+                        .addStatement("return (key == null) ? null : $T.BY_KEY.get(key)", keyIndex)
                         .build()
         );
         enumSpec.addMethod(
-                MethodSpec.methodBuilder("getGlyphCount")
-                        .addModifiers(Modifier.PUBLIC)
-                        .returns(TypeName.INT)
-                        .addStatement("return glyphCount")
+                MethodSpec.methodBuilder("familyOf")
+                        .addJavadoc("@param family\n        The key of a font face without its suffix (e.g. {@code u8g2_font_helvB08})\n\n" +
+                                    "@return The variants of the font face in key order (e.g. {@code _te}, {@code _tf}, {@code _tn}, {@code _tr}) or an empty list\n")
+                        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                        .returns(fontList)
+                        .addParameter(String.class, "family")
+                        .addStatement("return $T.FAMILIES.getOrDefault(family, $T.of())", keyIndex, List.class)
                         .build()
         );
         enumSpec.addMethod(
-                MethodSpec.methodBuilder("getGlyphTotal")
-                        .addModifiers(Modifier.PUBLIC)
-                        .returns(TypeName.INT)
-                        .addStatement("return glyphTotal")
+                MethodSpec.methodBuilder("withSuffix")
+                        .addJavadoc("@param suffix\n        The suffix of the font keys, which identifies the glyph set and build mode (e.g. {@code tf} or {@code t_all})\n\n" +
+                                    "@return The fonts with the suffix in key order or an empty list\n")
+                        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                        .returns(fontList)
+                        .addParameter(String.class, "suffix")
+                        .addStatement("return $T.SUFFIXES.getOrDefault(suffix, $T.of())", keyIndex, List.class)
                         .build()
         );
         enumSpec.addMethod(
-                MethodSpec.methodBuilder("getDescription")
-                        .addModifiers(Modifier.PUBLIC)
-                        .returns(String.class)
-                        .addStatement("return fontDescription")
+                MethodSpec.methodBuilder("valueAt")
+                        .addJavadoc("@return The font with the specified ordinal, without the copy made by {@link #values()}\n")
+                        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                        .returns(glcdFont)
+                        .addParameter(TypeName.INT, "ordinal")
+                        .addStatement("return VALUES[ordinal]")
                         .build()
         );
 
-        var fonts = extractor.extractFontFilesFromZip(GithubService.REPO_OWNER);
-
-        if (fonts == null)
-            throw new IllegalStateException("Unable to fetch fonts from Github service");
-
-        for (var font : fonts) {
-            String fontKey = font.name().replaceAll("\\.c", "");
-            String name = font.name().replaceAll("u8g2_|\\.c", "").toUpperCase();
-            if (exclusions.contains(fontKey)) {
-                log.debug("generateGlcdFontEnum() : Excluded font: {}", font);
-                continue;
-            }
-            enumSpec.addEnumConstant(name, TypeSpec.anonymousClassBuilder("$S, $L, $L, $S", fontKey, font.glyphCount(), font.glyphTotal(), font.desc()).build());
-        }
-        JavaFile.Builder javaBuilder = JavaFile.builder("com.ibasco.ucgdisplay.drivers.glcd.enums", enumSpec.build());
-        if (includeComments)
-            javaBuilder.addFileComment(generateFileComment(false));
-        return javaBuilder.build();
+        TypeSpec.Builder keyIndexSpec = TypeSpec.classBuilder("KeyIndex").addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+        keyIndexSpec.addField(FieldSpec.builder(fontMap, "BY_KEY", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("new $T<>()", HashMap.class).build());
+        keyIndexSpec.addField(FieldSpec.builder(fontListMap, "FAMILIES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("new $T<>()", HashMap.class).build());
+        keyIndexSpec.addField(FieldSpec.builder(fontListMap, "SUFFIXES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("new $T<>()", HashMap.class).build());
+        keyIndexSpec.addStaticBlock(CodeBlock.builder()
+                                            .addStatement("$T[] sorted = VALUES.clone()", glcdFont)
+                                            .addStatement("$T.sort(sorted, $T.comparing($T::getKey))", Arrays.class, Comparator.class, glcdFont)
+                                            .beginControlFlow("for ($T font : sorted)", glcdFont)
+                                            .addStatement("String key = font.getKey()")
+                                            .addStatement("int suffix = suffixStart(key)")
+                                            .addStatement("BY_KEY.put(key, font)")
+                                            .addStatement("FAMILIES.computeIfAbsent(key.substring(0, Math.max(suffix - 1, 0)), k -> new $T<>()).add(font)", ArrayList.class)
+                                            .addStatement("SUFFIXES.computeIfAbsent(key.substring(suffix), k -> new $T<>()).add(font)", ArrayList.class)
+                                            .endControlFlow()
+                                            .addStatement("FAMILIES.replaceAll((k, fonts) -> $T.copyOf(fonts))", List.class)
+                                            .addStatement("SUFFIXES.replaceAll((k, fonts) -> $T.copyOf(fonts))", List.class)
+                                            .build());
+        keyIndexSpec.addMethod(
+                MethodSpec.methodBuilder("suffixStart")
+                        .addJavadoc("The suffix follows the last underscore of the key, or the last two if the part in between is a single letter (e.g. {@code _t_all})\n")
+                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                        .returns(TypeName.INT)
+                        .addParameter(String.class, "key")
+                        .addStatement("int last = key.lastIndexOf('_')")
+                        .beginControlFlow("if (last >= 2 && key.charAt(last - 2) == '_')")
+                        .addStatement("return last - 1")
+                        .endControlFlow()
+                        .addStatement("return last + 1")
+                        .build()
+        );
+        enumSpec.addType(keyIndexSpec.build());
     }
 
     public String generateFontLookupTableCpp(String branch, List<String> exclusions) {
         CodeBuilder code = new CodeBuilder();
+        writeFontLookupTableCpp(branch, exclusions, code);
+        return code.toString();
+    }
+
+    /**
+     * Generate the font lookup table into the specified {@link CodeBuilder}. If the fonts are sharded (see {@link #setFontShardCount(int)}), this
+     * only generates the dispatcher calling the shards, which are generated by {@link #writeFontLookupShardCpp(String, List, int, CodeBuilder)}.
+     *
+     * @see CodeBuilder#open(java.nio.file.Path)
+     */
+    public void writeFontLookupTableCpp(String branch, List<String> exclusions, CodeBuilder code) {
         code.setUseUnixStyleSeparator(true);
         if (includeComments)
             code.appendLine(generateFileComment(true));
 
         List<String> fonts = fetchFontsFromLatestBranch(branch);
-
+        if (isFontLookupSharded()) {
+            writeFontLookupDispatcher(code);
+            return;
+        }
         code.appendLine("#include \"U8g2Hal.h\"");
-        code.appendMultiLine("#include <iostream>", 2);
+        if (constexprFontTable) {
+            writeFontTable(fonts, exclusions, "", code);
+        } else {
+            code.appendMultiLine("#include <iostream>", 2);
+            writeFontMap(fonts, exclusions, "", code);
+        }
+    }
 
-        code.appendLine("void U8g2hal_InitFonts(u8g2_lookup_font_map_t &font_map) {");
-        code.appendTabbedLine("font_map.clear();");
+    /**
+     * Generate the registrations of the fonts belonging to a shard
+     *
+     * @param shard
+     *         The index of the shard, between 0 and {@link #getFontShardCount()} (exclusive)
+     */
+    public void writeFontLookupShardCpp(String branch, List<String> exclusions, int shard, CodeBuilder code) {
+        if (!isFontLookupSharded() || shard < 0 || shard >= fontShardCount)
+            throw new IllegalArgumentException(String.format("Invalid font shard %d (shard count: %d)", shard, fontShardCount));
+        code.setUseUnixStyleSeparator(true);
+        if (includeComments)
+            code.appendLine(generateFileComment(true));
+
+        List<String> fonts = new ArrayList<>();
+        for (String fontName : fetchFontsFromLatestBranch(branch)) {
+            if (getFontShard(fontName) == shard)
+                fonts.add(fontName);
+        }
+        code.appendLine("#include <u8g2.h>");
+        if (constexprFontTable) {
+            writeFontTable(fonts, exclusions, getFontShardSuffix(shard), code);
+        } else {
+            code.appendLine();
+            writeFontMap(fonts, exclusions, getFontShardSuffix(shard), code);
+        }
+    }
+
+    /**
+     * @return The file name of a font lookup shard, located in the {@link #FONT_SHARD_DIR} sub-directory of {@code U8g2LookupFonts.cpp}
+     */
+    public static String getFontShardFileName(int shard) {
+        return "U8g2LookupFonts" + getFontShardSuffix(shard) + ".cpp";
+    }
+
+    /**
+     * Fonts are assigned to a shard by the hash of their family (the name up to the last underscore, e.g. {@code u8g2_font_helvB08}), so all the
+     * variants of a family end up in the same shard and adding or removing a font only affects the shard of its family.
+     */
+    private int getFontShard(String fontName) {
+        return Integer.remainderUnsigned(getFontFamily(fontName).hashCode(), fontShardCount);
+    }
+
+    private static String getFontFamily(String fontName) {
+        int index = fontName.lastIndexOf('_');
+        return (index < 0) ? fontName : fontName.substring(0, index);
+    }
+
+    private static String getFontShardSuffix(int shard) {
+        return String.format("_%02d", shard);
+    }
+
+    private boolean isFontLookupSharded() {
+        return fontShardCount > 1;
+    }
+
+    /**
+     * The fonts are registered to a {@code std::map} when the library is loaded. A shard (non-empty suffix) registers its fonts through the
+     * callback passed by the dispatcher.
+     */
+    private void writeFontMap(List<String> fonts, List<String> exclusions, String suffix, CodeBuilder code) {
+        boolean shard = !suffix.isEmpty();
+        if (shard)
+            code.appendMultiLine(FONT_SHARD_CALLBACK_TYPEDEF, 2);
+        writeInitFontsSignature(suffix, code);
+        if (!shard)
+            code.appendTabbedLine("font_map.clear();");
         for (String fontName : fonts) {
             if (exclusions.contains(fontName)) {
                 log.warn("[EXCLUDE FONT] Excluded font: {}", fontName);
-                code.appendTabbedLine("//Excluded: font_map[\"%s\"] = %s;", fontName, fontName);
+                code.appendTabbedLine(shard ? EXCLUDED_FONT_SHARD_ENTRY : EXCLUDED_FONT_MAP_ENTRY, fontName, fontName);
                 continue;
             }
-            code.appendTabbedLine("font_map[\"%s\"] = %s;", fontName, fontName);
+            code.appendTabbedLine(shard ? FONT_SHARD_ENTRY : FONT_MAP_ENTRY, fontName, fontName);
+        }
+        code.append("}");
+    }
+
+    private static void writeInitFontsSignature(String suffix, CodeBuilder code) {
+        if (suffix.isEmpty())
+            code.appendLine("void U8g2hal_InitFonts(u8g2_lookup_font_map_t &font_map) {");
+        else
+            code.appendLine("void U8g2hal_InitFonts%s(u8g2_font_shard_add_t add_font, void *context) {", suffix);
+    }
+
+    /**
+     * The fonts are written to a {@code constexpr} array sorted by name, so no memory is allocated and nothing needs to be initialized when the
+     * library is loaded. {@code U8g2hal_FindFont} performs a binary search on the table. {@code U8g2hal_InitFonts} is kept for existing callers.
+     */
+    private void writeFontTable(List<String> fonts, List<String> exclusions, String suffix, CodeBuilder code) {
+        //The generated search uses strcmp, which agrees with the natural order of the (ASCII) font names
+        var sortedFonts = new TreeSet<>(fonts);
+        long included = sortedFonts.stream().filter(font -> !exclusions.contains(font)).count();
+
+        code.appendLine("#include <cstddef>");
+        code.appendMultiLine("#include <cstring>", 2);
+
+        if (!suffix.isEmpty())
+            code.appendMultiLine(FONT_SHARD_CALLBACK_TYPEDEF, 2);
+        code.appendLine("namespace {");
+        code.appendTabbedLine("struct font_table_entry_t {");
+        code.appendTabbedLine(2, "const char *name;");
+        code.appendTabbedLine(2, "const uint8_t *font;");
+        code.appendMultiLine("    };", 2);
+        if (included > 0) {
+            code.appendTabbedLine("constexpr font_table_entry_t font_table[] = {");
+            for (String fontName : sortedFonts) {
+                code.appendTab();
+                if (exclusions.contains(fontName)) {
+                    log.warn("[EXCLUDE FONT] Excluded font: {}", fontName);
+                    code.appendTabbedLine(EXCLUDED_FONT_TABLE_ENTRY, fontName, fontName);
+                    continue;
+                }
+                code.appendTabbedLine(FONT_TABLE_ENTRY, fontName, fontName);
+            }
+            code.appendMultiLine("    };", 2);
+            code.appendTabbedLine("constexpr std::size_t font_table_size = sizeof(font_table) / sizeof(font_table[0]);");
+        } else {
+            code.appendTabbedLine("constexpr const font_table_entry_t *font_table = nullptr;");
+            code.appendTabbedLine("constexpr std::size_t font_table_size = 0;");
+        }
+        code.appendMultiLine("}", 2);
+
+        code.appendLine("const uint8_t *U8g2hal_FindFont%s(const char *name) {", suffix);
+        code.appendTabbedLine("std::size_t low = 0, high = font_table_size;");
+        code.appendTabbedLine("while (low < high) {");
+        code.appendTabbedLine(2, "std::size_t mid = low + (high - low) / 2;");
+        code.appendTabbedLine(2, "int result = std::strcmp(font_table[mid].name, name);");
+        code.appendTabbedLine(2, "if (result == 0)");
+        code.appendTabbedLine(3, "return font_table[mid].font;");
+        code.appendTabbedLine(2, "if (result < 0)");
+        code.appendTabbedLine(3, "low = mid + 1;");
+        code.appendTabbedLine(2, "else");
+        code.appendTabbedLine(3, "high = mid;");
+        code.appendTabbedLine("}");
+        code.appendTabbedLine("return nullptr;");
+        code.appendMultiLine("}", 2);
+
+        writeInitFontsSignature(suffix, code);
+        if (suffix.isEmpty()) {
+            code.appendTabbedLine("font_map.clear();");
+            code.appendTabbedLine("for (std::size_t i = 0; i < font_table_size; i++)");
+            code.appendTabbedLine(2, "font_map[font_table[i].name] = font_table[i].font;");
+        } else {
+            code.appendTabbedLine("for (std::size_t i = 0; i < font_table_size; i++)");
+            code.appendTabbedLine(2, "add_font(context, font_table[i].name, font_table[i].font);");
         }
         code.append("}");
-        return code.toString();
+    }
+
+    /**
+     * The entry points of a sharded font lookup, delegating to the functions of each shard
+     */
+    private void writeFontLookupDispatcher(CodeBuilder code) {
+        code.appendLine("#include \"U8g2Hal.h\"");
+        if (constexprFontTable) {
+            code.appendLine("#include <cstddef>");
+            code.appendLine("#include <cstdint>");
+            code.appendLine("#include <cstring>");
+        }
+        code.appendLine();
+        code.appendMultiLine(FONT_SHARD_CALLBACK_TYPEDEF, 2);
+        for (int shard = 0; shard < fontShardCount; shard++) {
+            if (constexprFontTable)
+                code.appendLine("const uint8_t *U8g2hal_FindFont%s(const char *name);", getFontShardSuffix(shard));
+            code.appendLine("void U8g2hal_InitFonts%s(u8g2_font_shard_add_t add_font, void *context);", getFontShardSuffix(shard));
+        }
+        code.appendLine();
+
+        code.appendLine("namespace {");
+        code.appendTabbedLine("void add_font(void *context, const char *name, const uint8_t *font) {");
+        code.appendTabbedLine(2, "(*static_cast<u8g2_lookup_font_map_t *>(context))[name] = font;");
+        code.appendTabbedLine("}");
+        code.appendMultiLine("}", 2);
+
+        if (constexprFontTable) {
+            code.appendLine("namespace {");
+            code.appendTabbedLine("typedef const uint8_t *(*font_table_search_t)(const char *name);");
+            code.appendLine();
+            code.appendTabbedLine("constexpr font_table_search_t font_table_shards[] = {");
+            for (int shard = 0; shard < fontShardCount; shard++)
+                code.appendTabbedLine(2, "U8g2hal_FindFont%s,", getFontShardSuffix(shard));
+            code.appendMultiLine("    };", 2);
+            code.appendTabbedLine("//Must match the assignment of the code generator: Java's String.hashCode() of the name up to the last underscore");
+            code.appendTabbedLine("std::size_t font_table_shard(const char *name) {");
+            code.appendTabbedLine(2, "const char *end = std::strrchr(name, '_');");
+            code.appendTabbedLine(2, "if (end == nullptr)");
+            code.appendTabbedLine(3, "end = name + std::strlen(name);");
+            code.appendTabbedLine(2, "std::uint32_t hash = 0;");
+            code.appendTabbedLine(2, "for (const char *c = name; c < end; c++)");
+            code.appendTabbedLine(3, "hash = 31 * hash + static_cast<unsigned char>(*c);");
+            code.appendTabbedLine(2, "return hash %% %d;", fontShardCount);
+            code.appendTabbedLine("}");
+            code.appendMultiLine("}", 2);
+
+            code.appendLine("const uint8_t *U8g2hal_FindFont(const char *name) {");
+            code.appendTabbedLine("return font_table_shards[font_table_shard(name)](name);");
+            code.appendMultiLine("}", 2);
+        }
+
+        code.appendLine("void U8g2hal_InitFonts(u8g2_lookup_font_map_t &font_map) {");
+        code.appendTabbedLine("font_map.clear();");
+        for (int shard = 0; shard < fontShardCount; shard++)
+            code.appendTabbedLine("U8g2hal_InitFonts%s(add_font, &font_map);", getFontShardSuffix(shard));
+        code.append("}");
     }
 
     public String generateSetupLookupTableCpp(List<Controller> controllers, List<String> excludedControllers) {
         CodeBuilder code = new CodeBuilder();
+        writeSetupLookupTableCpp(controllers, excludedControllers, code);
+        return code.toString();
+    }
+
+    /**
+     * Generate the setup lookup table into the specified {@link CodeBuilder}
+     */
+    public void writeSetupLookupTableCpp(List<Controller> controllers, List<String> excludedControllers, CodeBuilder code) {
         code.setUseUnixStyleSeparator(true);
         if (includeComments)
             code.appendLine(generateFileComment(true));
@@ -430,16 +1045,23 @@ public class CodeGenerator {
                         log.warn("generateSetupLookupTableCpp(): Excluded vendor entry '{}' from controller '{}'", name, controller.getName());
                         continue;
                     }
-                    code.appendTabbedLine("setup_map[\"%s\"] = %s;", name, name);
+                    code.appendTabbedLine(SETUP_MAP_ENTRY, name, name);
                 }
             }
         }
         code.append("}");
-        return code.toString();
     }
 
     public String generateU8g2CmakeFile(String branch) {
         var code = new CodeBuilder();
+        writeU8g2CmakeFile(branch, code);
+        return code.toString();
+    }
+
+    /**
+     * Generate the u8g2 cmake file into the specified {@link CodeBuilder}
+     */
+    public void writeU8g2CmakeFile(String branch, CodeBuilder code) {
         code.setUseUnixStyleSeparator(true);
 
         if (includeComments) {
@@ -480,7 +1102,7 @@ public class CodeGenerator {
         List<String> u8g2SourceFiles = fetchU8g2SourceFilesFromBranch(branch);
 
         for (String sourceFile : u8g2SourceFiles) {
-            code.appendTabbedLine("\"${SOURCE_DIR}/csrc/%s\"", sourceFile);
+            code.appendTabbedLine(CMAKE_SOURCE_ENTRY, sourceFile);
         }
         code.appendTabbedLine(")");
         code.appendLine();
@@ -495,7 +1117,19 @@ public class CodeGenerator {
         code.appendLine("# - Ref 2: https://stackoverflow.com/questions/47812230/cmake-make-add-library-depend-on-externalproject-add");
         code.appendLine("set_source_files_properties(${U8G2_SRC} PROPERTIES GENERATED TRUE)");
 
-        return code.toString();
+        if (isFontLookupSharded()) {
+            code.appendLine();
+            code.appendLine("# The font lookup shards called by U8g2LookupFonts.cpp. They only depend on the u8g2 headers and are compiled by their own");
+            code.appendLine("# object library, to be linked by the graphics module: target_link_libraries(<graphics target> PRIVATE u8g2_font_lookup)");
+            code.appendLine("list(APPEND U8G2_FONT_LOOKUP_SRC");
+            for (int shard = 0; shard < fontShardCount; shard++)
+                code.appendTabbedLine(CMAKE_FONT_SHARD_ENTRY, FONT_SHARD_DIR, getFontShardFileName(shard));
+            code.appendTabbedLine(")");
+            code.appendLine();
+            code.appendLine("add_library(u8g2_font_lookup OBJECT ${U8G2_FONT_LOOKUP_SRC})");
+            code.appendLine("add_dependencies(u8g2_font_lookup project_u8g2)");
+            code.appendLine("target_link_libraries(u8g2_font_lookup PUBLIC u8g2)");
+        }
     }
 
     private void createFieldGetter(TypeSpec.Builder enumBuilder, MethodSpec.Builder constructorBuilder, Type type, String field) {
@@ -518,20 +1152,8 @@ public class CodeGenerator {
     private String getSupportedCommProtocols(Vendor vendor) {
         ArrayList<String> interfaces = new ArrayList<>();
         for (var config : vendor.getVendorConfigs()) {
-            for (var busInt : config.getSupportedInterfaces()) {
-                String description = switch (busInt.getName().trim()) {
-                    case "COM_4WSPI" -> "<li>4-Wire SPI protocol</li>";
-                    case "COM_3WSPI" -> "<li>3-Wire SPI protocol</li>";
-                    case "COM_6800" -> "<li>Parallel 8-bit 6800 protocol</li>";
-                    case "COM_8080" -> "<li>Parallel 8-bit 8080 protocol</li>";
-                    case "COM_I2C" -> "<li>I2C protocol</li>";
-                    case "COM_UART" -> "<li>Serial/UART protocol</li>";
-                    case "COM_KS0108" -> "<li>Parallel 6800 protocol for KS0108 (more chip-select lines)</li>";
-                    case "COM_SED1520" -> "<li>Special protocol for SED1520</li>";
-                    default -> "<li>UNKNOWN</li>";
-                };
-                interfaces.add(description);
-            }
+            for (var busInt : config.getSupportedInterfaces())
+                interfaces.add("<li>" + busInt.getDescription() + "</li>");
         }
         return String.join("\n", interfaces).replaceAll("\\t", " ".repeat(4));
     }
@@ -554,6 +1176,13 @@ public class CodeGenerator {
         return u8g2FileCache;
     }
 
+    /**
+     * @return The names of the fonts listed in the tree of the branch, which the C++ font lookup is generated from
+     */
+    public List<String> getLookupFontNames(String branch) {
+        return List.copyOf(fetchFontsFromLatestBranch(branch));
+    }
+
     private List<String> fetchFontsFromLatestBranch(String branchName) {
         try {
             if (StringUtils.isBlank(branchName))
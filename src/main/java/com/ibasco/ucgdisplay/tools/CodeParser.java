@@ -2,16 +2,18 @@ package com.ibasco.ucgdisplay.tools;
 
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdCommProtocol;
 import com.ibasco.ucgdisplay.tools.beans.*;
-
-import static com.ibasco.ucgdisplay.tools.util.StringUtils.sanitizeData;
+import com.ibasco.ucgdisplay.tools.util.CodeLexer;
+import com.ibasco.ucgdisplay.tools.util.CodeLexer.TokenType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Reader;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Parses the u8g2 codebuild.c file
@@ -23,173 +25,370 @@ public class CodeParser {
 
     private static final Logger log = LoggerFactory.getLogger(CodeParser.class);
 
-    private static final Pattern PATTERN_EXTRACT_CONTROLLERS = Pattern.compile("struct\\s+controller\\s+controller\\_list\\[\\].+\\n\\{(?<controllers>(?s:.)+)\\}\\;");
-
-    private static final Pattern PATTERN_PARSE_ENTRIES = Pattern.compile("(?<controller>\\{\\\"(?<name>[\\w\\d]*)\\\",(?<tilewidth>\\d*),(?<tileheight>\\d*),\\\"(?<hvline>[\\w\\d]*)\\\",\\\"(?<cad>[\\w\\d]*)\\\",\\\"(?<cadshort>[\\w\\d]*)\\\",(?<com>[\\w\\d\\|]*)?,\\\"(?<note>.*?)\\\",(?<flag>[\\d]*),(\\{(?<vendors>((\\{\\\"?[\\w\\d]*\\\"?\\}).*?)*?,?)\\})?).*?");
+    private static final CodebuildListener NO_OP_LISTENER = new CodebuildListener() {};
 
-    private static final Pattern PATTERN_PARSE_DISPLAY = Pattern.compile("\\{\\\"?(?<display>.*?)\\\"?\\}");
+    private static final int INTERFACE_FIELD_COUNT = 8;
 
-    private static final Pattern PATTERN_CODE_COMMENTS = Pattern.compile("\\/\\*.+\\*\\/");
+    private boolean parallel;
 
-    private static final Pattern PATTERN_BLANK_LINES = Pattern.compile("(?m)^[ \t]*\n?\n");
+    public boolean isParallel() {
+        return parallel;
+    }
 
-    private static final Pattern PATTERN_INTERFACE = Pattern.compile("(?s)\\{.+?\\\"(?<interfaceName>.*?)\\\"[\\s\\t]*,.+?\\\"(?<setpinFunction>.*?)\\\"[\\s\\t]*,.+?\\\"(?<arduinoComProcedure>.*?)\\\"[\\s\\t]*,.+?\\\"(?<arduinoGpioProcedure>.*?)\\\"[\\s\\t]*,.+?\\\"(?<pinsWithType>.*?)\\\"[\\s\\t]*,.+?\\\"(?<pinsPlain>.*?)\\\"[\\s\\t]*,.+?\\\"(?<pinsMdPlain>.*?)\\\"[\\s\\t]*,.+?\\\"(?<genericComProcedure>.*?)\\\".+?\\}");
+    /**
+     * @param parallel
+     *         {@code true} to split the controller list at the entry boundaries and parse the entries on the common {@link java.util.concurrent.ForkJoinPool}.
+     *         The result is identical to the sequential mode.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
 
-    public List<Controller> parseControllerCode(String code) {
+    public List<Controller> parseControllerCode(CharSequence code) {
         ArrayList<Controller> result;
-        Matcher controllerMatcher = PATTERN_EXTRACT_CONTROLLERS.matcher(code);
-        Map<String, Controller> controllerMap = new HashMap<>();
-
-        while (controllerMatcher.find()) {
-            String controllerGroup = sanitizeData(controllerMatcher.group("controllers"));
-            Matcher entryMatcher = PATTERN_PARSE_ENTRIES.matcher(controllerGroup);
-
-            //Start controller iteration
-            while (entryMatcher.find()) {
-                String name = entryMatcher.group("name").toUpperCase();
-                int tileWidth = Integer.parseInt(entryMatcher.group("tilewidth"));
-                int tileHeight = Integer.parseInt(entryMatcher.group("tileheight"));
-                String bufferLayout = entryMatcher.group("hvline");
-                String cad = entryMatcher.group("cad");
-                String cadShort = entryMatcher.group("cadshort");
-                String com = entryMatcher.group("com");
-                String notes = entryMatcher.group("note");
-                String flag = entryMatcher.group("flag");
-                String vendors = entryMatcher.group("vendors");
-                String[] vendorCodes = vendors.split(",");
-
-                log.debug("name: {}, tile width = {}, tile height = {}, hvline = {}, cad = {}, cadshort = {}, com = {}, notes = {}, flag = {}, vendors = {}", name, tileWidth, tileHeight, bufferLayout, cad, cadShort, com, notes, flag, vendors);
-
-                Controller controller = controllerMap.computeIfAbsent(name, s -> new Controller(name));
-
-                for (var vendorCode : vendorCodes) {
-                    String vendorName = parseVendorName(vendorCode).toUpperCase();
-
-                    //Skip "null" vendors
-                    if ("null".equalsIgnoreCase(vendorName))
-                        continue;
-
-                    var vendor = extractVendor(controller, vendorName);
-
-                    //Create a new entry if not yet existing
-                    if (vendor == null) {
-                        //Create/update vendor properties
-                        vendor = new Vendor(controller, vendorName.toUpperCase());
-                        vendor.setTileWidth(tileWidth);
-                        vendor.setTileHeight(tileHeight);
-                        vendor.setNotes(notes);
-                        vendor.setBufferLayout(bufferLayout);
-                    }
-
-                    //Update config
-                    var vendorConfig = new VendorConfig();
-                    vendorConfig.setVendor(vendor);
-                    vendorConfig.setCadName(cad);
-                    vendorConfig.setCadNameShort(cadShort);
-
-                    for (var comm : Arrays.stream(com.split("\\|")).map(commName -> new Comm(commName)).collect(Collectors.toList())) {
-                        comm.setValue(getCommValue(comm.getName()));
-                        vendorConfig.getSupportedInterfaces().add(comm);
-                    }
-
-                    vendor.getVendorConfigs().add(vendorConfig);
-                    controller.getVendorList().add(vendor);
-                }
+        CodeLexer lexer = new CodeLexer(code);
+
+        if (seekDeclaration(lexer, "controller", "controller_list")) {
+            if (parallel) {
+                result = parseControllerListParallel(lexer);
+            } else {
+                Map<String, Controller> controllerMap = new HashMap<>();
+                parseControllerList(lexer, controllerMap, NO_OP_LISTENER);
+                result = new ArrayList<>(controllerMap.values());
             }
+        } else {
+            log.warn("[PARSE-CONTROLLER] Declaration 'struct controller controller_list[]' not found");
+            result = new ArrayList<>();
         }
 
-        result = new ArrayList<>(controllerMap.values());
         Collections.sort(result);
 
         log.debug("Found a total of {} controllers", result.size());
         return result;
     }
 
-    public List<CommInterface> parseInterfaceCode(String code) {
-        var interfaces = new ArrayList<CommInterface>();
-        code = stripBlankLines(stripCodeComments(code));
-        log.info("[PARSE-INTERFACE] Parsing comm interface code");
-        Matcher interfaceMatcher = PATTERN_INTERFACE.matcher(code);
+    /**
+     * Parses codebuild.c incrementally while it is being read. The controller list entries are reported to the listener as soon as their initializer
+     * closes and reading stops right after the interface list, so only a small window of the input is held in memory at any time.
+     *
+     * @param reader
+     *         The contents of codebuild.c (e.g. the response body of the download)
+     * @param listener
+     *         The listener receiving the parsed controllers, vendors, configurations and interfaces
+     */
+    public void parseCodebuild(Reader reader, CodebuildListener listener) {
+        CodeLexer lexer = new CodeLexer(reader);
+        Map<String, Controller> controllerMap = new HashMap<>();
+        if (!seekDeclaration(lexer, "controller", "controller_list"))
+            throw new IllegalStateException("Declaration 'struct controller controller_list[]' not found");
+        parseControllerList(lexer, controllerMap, listener);
+        log.debug("[PARSE-CODEBUILD] Found a total of {} controllers", controllerMap.size());
+
+        if (!seekDeclaration(lexer, "interface", "interface_list"))
+            throw new IllegalStateException("Declaration 'struct interface interface_list[]' not found");
+        lexer.expect(TokenType.LEFT_BRACE);
+        parseInterfaceEntries(lexer, listener::onInterface);
+        lexer.expect(TokenType.RIGHT_BRACE);
+    }
+
+    private void parseControllerList(CodeLexer lexer, Map<String, Controller> controllerMap, CodebuildListener listener) {
+        lexer.expect(TokenType.LEFT_BRACE);
+        //Start controller iteration
         int index = 0;
-        while (interfaceMatcher.find()) {
-            String name = interfaceMatcher.group("interfaceName");
-            String setPinFunction = interfaceMatcher.group("setpinFunction");
-            String arduinoComProc = interfaceMatcher.group("arduinoComProcedure");
-            String arduinoGpioProc = interfaceMatcher.group("arduinoGpioProcedure");
-            String pinsWithType = interfaceMatcher.group("pinsWithType");
-            String pinsPlain = interfaceMatcher.group("pinsPlain");
-            String pinsMdPlain = interfaceMatcher.group("pinsMdPlain");
-            String genericComProc = interfaceMatcher.group("genericComProcedure");
-            GlcdCommProtocol commProto = mapToCommProtocol(index);
-            var commInterface = new CommInterface(index++, commProto, name, setPinFunction, arduinoComProc, arduinoGpioProc, pinsWithType, pinsPlain, pinsMdPlain, genericComProc);
-            interfaces.add(commInterface);
-            log.info("[PARSE-INTERFACE] Parsed Comm Interface = {}", commInterface);
+        while (lexer.peek() != TokenType.RIGHT_BRACE) {
+            mergeControllerEntry(parseControllerEntry(lexer, index++), controllerMap, listener);
+            if (!lexer.accept(TokenType.COMMA))
+                break;
         }
-        log.info("[PARSE-INTERFACE] Parsed a total of {} interfaces", interfaces.size());
-        return interfaces;
+        lexer.expect(TokenType.RIGHT_BRACE);
     }
 
-    private String applyPrefix(String value) {
-        return String.format("%s.%s", "GlcdCommProtocol", value);
+    /**
+     * Parses the entries of the controller list concurrently. The entries are grouped by controller name and each group is merged in declaration order,
+     * so the vendors and configurations are ordered exactly as in the sequential mode.
+     */
+    private ArrayList<Controller> parseControllerListParallel(CodeLexer lexer) {
+        List<CodeLexer> blocks = lexer.splitBlock();
+        ConcurrentMap<String, List<ControllerEntry>> entries = IntStream.range(0, blocks.size())
+                .parallel()
+                .mapToObj(i -> {
+                    CodeLexer blockLexer = blocks.get(i);
+                    ControllerEntry entry = parseControllerEntry(blockLexer, i);
+                    blockLexer.expect(TokenType.EOF);
+                    return entry;
+                })
+                .collect(Collectors.groupingByConcurrent(ControllerEntry::name));
+        log.debug("[PARSE-CONTROLLER] Parsed {} entries of {} controllers in parallel", blocks.size(), entries.size());
+        return entries.values().parallelStream()
+                .map(group -> {
+                    group.sort(Comparator.comparingInt(ControllerEntry::index));
+                    Map<String, Controller> controllerMap = new HashMap<>(1);
+                    for (var entry : group)
+                        mergeControllerEntry(entry, controllerMap, NO_OP_LISTENER);
+                    return controllerMap.get(group.get(0).name());
+                })
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
-    private GlcdCommProtocol mapToCommProtocol(int index) {
-        return switch (index) {
-            case 0 -> GlcdCommProtocol.SPI_SW_4WIRE;
-            case 1 -> GlcdCommProtocol.SPI_HW_4WIRE;
-            case 2 -> GlcdCommProtocol.PARALLEL_6800;
-            case 3 -> GlcdCommProtocol.PARALLEL_8080;
-            case 4 -> GlcdCommProtocol.SPI_SW_3WIRE;
-            case 5 -> GlcdCommProtocol.SPI_HW_3WIRE; //NOTE: (CASE 5) From U8G2 -> 3-wire hardware spi is NOT IMPLEMENTED
-            case 6 -> GlcdCommProtocol.I2C_SW;
-            case 7 -> GlcdCommProtocol.I2C_HW;
-            case 8 -> GlcdCommProtocol.SPI_SW_4WIRE_ST7920;
-            case 9 -> GlcdCommProtocol.SPI_HW_4WIRE_ST7920;
-            case 10 -> GlcdCommProtocol.I2C_HW_2ND;
-            case 11 -> GlcdCommProtocol.PARALLEL_6800_KS0108;
-            case 12 -> GlcdCommProtocol.SPI_HW_4WIRE_2ND;
-            case 13 -> GlcdCommProtocol.SED1520;
-            case 14 -> GlcdCommProtocol.SPI_HW_ST7920_2ND;
-            default -> throw new IllegalStateException("Unmapped comm interface index: " + index);
-        };
+    /**
+     * Positions the lexer on the first token of the initializer of a {@code struct <structName> <arrayName>[] =} declaration
+     *
+     * @return {@code true} if the declaration was found
+     */
+    private boolean seekDeclaration(CodeLexer lexer, String structName, String arrayName) {
+        boolean prevStruct = false, prevType = false;
+        while (lexer.peek() != TokenType.EOF) {
+            if (lexer.peek() != TokenType.IDENTIFIER) {
+                prevStruct = prevType = false;
+                lexer.advance();
+                continue;
+            }
+            String identifier = lexer.expect(TokenType.IDENTIFIER);
+            if (prevType && arrayName.equals(identifier) && lexer.peek() == TokenType.LEFT_BRACKET) {
+                lexer.expect(TokenType.LEFT_BRACKET);
+                lexer.expect(TokenType.RIGHT_BRACKET);
+                lexer.expect(TokenType.ASSIGN);
+                return true;
+            }
+            prevType = prevStruct && structName.equals(identifier);
+            prevStruct = "struct".equals(identifier);
+        }
+        return false;
     }
 
-    private String stripCodeComments(String code) {
-        return code.replaceAll(PATTERN_CODE_COMMENTS.pattern(), "");
+    /**
+     * Parses a single entry of the controller list
+     * <pre>
+     * { "name", tile width, tile height, "hvline", "cad", "cad short", COM_A|COM_B, "note", flag, { { "display" }, ..., { NULL } } }
+     * </pre>
+     */
+    private ControllerEntry parseControllerEntry(CodeLexer lexer, int index) {
+        lexer.expect(TokenType.LEFT_BRACE);
+        String name = lexer.expect(TokenType.STRING).toUpperCase();
+        lexer.expect(TokenType.COMMA);
+        int tileWidth = lexer.expectInteger();
+        lexer.expect(TokenType.COMMA);
+        int tileHeight = lexer.expectInteger();
+        lexer.expect(TokenType.COMMA);
+        String bufferLayout = lexer.expect(TokenType.STRING);
+        lexer.expect(TokenType.COMMA);
+        String cad = lexer.expect(TokenType.STRING);
+        lexer.expect(TokenType.COMMA);
+        String cadShort = lexer.expect(TokenType.STRING);
+        lexer.expect(TokenType.COMMA);
+        int comMask = parseComExpression(lexer);
+        lexer.expect(TokenType.COMMA);
+        String notes = lexer.expect(TokenType.STRING);
+        lexer.expect(TokenType.COMMA);
+        int flag = lexer.expectInteger();
+        lexer.expect(TokenType.COMMA);
+        List<String> displays = parseDisplayList(lexer);
+        lexer.accept(TokenType.COMMA);
+        lexer.expect(TokenType.RIGHT_BRACE);
+
+        log.debug("name: {}, tile width = {}, tile height = {}, hvline = {}, cad = {}, cadshort = {}, com = {}, notes = {}, flag = {}, vendors = {}", name, tileWidth, tileHeight, bufferLayout, cad, cadShort, GlcdCommInfo.toExpression(comMask, "|"), notes, flag, displays);
+        return new ControllerEntry(index, name, tileWidth, tileHeight, bufferLayout, cad, cadShort, comMask, notes, displays);
     }
 
-    private String stripBlankLines(String code) {
-        return code.replaceAll(PATTERN_BLANK_LINES.pattern(), "");
+    private void mergeControllerEntry(ControllerEntry entry, Map<String, Controller> controllerMap, CodebuildListener listener) {
+        Controller controller = controllerMap.get(entry.name());
+        if (controller == null) {
+            controller = new Controller(entry.name());
+            controllerMap.put(entry.name(), controller);
+            listener.onController(controller);
+        }
+
+        for (var vendorName : entry.displays()) {
+            var vendor = controller.getVendor(vendorName);
+
+            //Create a new entry if not yet existing
+            if (vendor == null) {
+                //Create/update vendor properties
+                vendor = new Vendor(controller, vendorName);
+                vendor.setTileWidth(entry.tileWidth());
+                vendor.setTileHeight(entry.tileHeight());
+                vendor.setNotes(entry.notes());
+                vendor.setBufferLayout(entry.bufferLayout());
+                controller.addVendor(vendor);
+                listener.onVendor(vendor);
+            }
+
+            //Update config
+            var vendorConfig = new VendorConfig();
+            vendorConfig.setVendor(vendor);
+            vendorConfig.setCadName(entry.cad());
+            vendorConfig.setCadNameShort(entry.cadShort());
+            vendorConfig.setSupportedInterfaceMask(entry.comMask());
+
+            vendor.getVendorConfigs().add(vendorConfig);
+            listener.onConfig(vendorConfig);
+        }
     }
 
-    private int getCommValue(String comm) {
-        return switch (comm) {
-            case "COM_4WSPI" -> 0x0001;
-            case "COM_3WSPI" -> 0x0002;
-            case "COM_6800" -> 0x0004;
-            case "COM_8080" -> 0x0008;
-            case "COM_I2C" -> 0x0010;
-            case "COM_ST7920SPI" -> 0x0020;
-            case "COM_UART" -> 0x0040;
-            case "COM_KS0108" -> 0x0080;
-            case "COM_SED1520" -> 0x0100;
-            default -> -1;
-        };
+    /**
+     * Parses a bitwise-or expression of COM_* constants (e.g. {@code COM_4WSPI|COM_3WSPI|COM_6800})
+     *
+     * @return The {@link GlcdCommInfo} bitmask
+     */
+    private int parseComExpression(CodeLexer lexer) {
+        int mask = 0;
+        do {
+            if (lexer.peek() == TokenType.INTEGER) {
+                int value = lexer.expectInteger();
+                if ((value & ~GlcdCommInfo.ALL) != 0)
+                    throw lexer.error(String.format("Unknown interface flags 0x%04x", value & ~GlcdCommInfo.ALL));
+                mask |= value;
+            } else {
+                if (lexer.peek() != TokenType.IDENTIFIER)
+                    lexer.expect(TokenType.IDENTIFIER);
+                GlcdCommInfo commInfo = GlcdCommInfo.fromName(lexer.text());
+                if (commInfo == null)
+                    throw lexer.error("Unknown interface '" + lexer.text() + "'");
+                lexer.advance();
+                mask |= commInfo.getValue();
+            }
+        } while (lexer.accept(TokenType.PIPE));
+        return mask;
     }
 
-    private Vendor extractVendor(Controller controller, String vendorName) {
-        return controller.getVendorList().stream()
-                .filter(p -> p.getName().equalsIgnoreCase(vendorName))
-                .findFirst()
-                .orElse(null);
+    /**
+     * Parses the list of display names of a controller entry (e.g. <code>{ { "128x64_noname" }, { NULL } }</code>). {@code NULL} entries are skipped.
+     *
+     * @return The upper-case display names
+     */
+    private List<String> parseDisplayList(CodeLexer lexer) {
+        List<String> displays = new ArrayList<>();
+        lexer.expect(TokenType.LEFT_BRACE);
+        while (lexer.peek() == TokenType.LEFT_BRACE) {
+            lexer.advance();
+            if (lexer.peek() == TokenType.STRING) {
+                displays.add(lexer.expect(TokenType.STRING).trim().toUpperCase());
+            } else if (lexer.peek() != TokenType.IDENTIFIER || !"NULL".equals(lexer.text())) {
+                throw lexer.error("Expected display name or NULL but found '" + lexer.text() + "'");
+            } else {
+                lexer.advance();
+            }
+            lexer.expect(TokenType.RIGHT_BRACE);
+            if (!lexer.accept(TokenType.COMMA))
+                break;
+        }
+        lexer.expect(TokenType.RIGHT_BRACE);
+        return displays;
     }
 
-    private String parseVendorName(String displayCode) {
-        Matcher displayMatcher = PATTERN_PARSE_DISPLAY.matcher(displayCode);
-        if (displayMatcher.find()) {
-            String res = displayMatcher.group("display").trim().toLowerCase();
-            return res.replaceAll("\"", "");
+    /**
+     * Parses the entries of the interface list
+     *
+     * @param code
+     *         The contents of the {@code interface_list[]} initializer (excluding the outer braces)
+     *
+     * @return The interfaces in declaration order
+     */
+    public List<CommInterface> parseInterfaceCode(CharSequence code) {
+        var interfaces = new ArrayList<CommInterface>();
+        log.info("[PARSE-INTERFACE] Parsing comm interface code");
+        CodeLexer lexer = new CodeLexer(code);
+        parseInterfaceEntries(lexer, interfaces::add);
+        lexer.expect(TokenType.EOF);
+        log.info("[PARSE-INTERFACE] Parsed a total of {} interfaces", interfaces.size());
+        return interfaces;
+    }
+
+    /**
+     * Reads the comma-separated interface entries up to the closing brace (or the end) of the list. Each entry holds eight string fields:
+     * <pre>
+     * { "name", "setpin function", "arduino com procedure", "arduino gpio procedure", "pins with type", "pins plain", "pins markdown", "generic com procedure" }
+     * </pre>
+     */
+    private void parseInterfaceEntries(CodeLexer lexer, Consumer<CommInterface> consumer) {
+        int index = 0;
+        while (lexer.peek() == TokenType.LEFT_BRACE) {
+            int line = lexer.line(), column = lexer.column();
+            lexer.advance();
+            String[] fields = new String[INTERFACE_FIELD_COUNT];
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0)
+                    lexer.expect(TokenType.COMMA);
+                fields[i] = lexer.expect(TokenType.STRING);
+            }
+            lexer.accept(TokenType.COMMA);
+            lexer.expect(TokenType.RIGHT_BRACE);
+
+            GlcdCommProtocol commProto = mapToCommProtocol(fields[0], fields[1]);
+            if (commProto == null)
+                throw new IllegalStateException(String.format("Unmapped comm interface '%s' (Set pin function: %s) at index %d (line %d, column %d)", fields[0], fields[1], index, line, column));
+            var commInterface = new CommInterface(index++, commProto, fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6], fields[7]);
+            log.info("[PARSE-INTERFACE] Parsed Comm Interface = {}", commInterface);
+            consumer.accept(commInterface);
+            if (!lexer.accept(TokenType.COMMA))
+                break;
+        }
+    }
+
+    /**
+     * Derive the protocol of an interface list entry from its name, which is composed of an optional {@code 2ND_} prefix (second bus), the number of
+     * wires ({@code 3W_}/{@code 4W_}, SPI only), {@code SW_}/{@code HW_} and the bus. SPI entries without a number of wires are the ST7920 variants.
+     * Unnamed entries are identified by their set pin function.
+     *
+     * @return The {@link GlcdCommProtocol} or {@code null} if the entry does not describe a known protocol
+     */
+    private GlcdCommProtocol mapToCommProtocol(String name, String setPinFunction) {
+        if (name.isEmpty()) {
+            if (setPinFunction.endsWith("_KS0108"))
+                return GlcdCommProtocol.PARALLEL_6800_KS0108;
+            if (setPinFunction.endsWith("_SED1520"))
+                return GlcdCommProtocol.SED1520;
+            return null;
+        }
+        if (name.equals("6800") && setPinFunction.endsWith("_6800"))
+            return GlcdCommProtocol.PARALLEL_6800;
+        if (name.equals("8080") && setPinFunction.endsWith("_8080"))
+            return GlcdCommProtocol.PARALLEL_8080;
+
+        String[] tokens = name.split("_");
+        int i = 0;
+        boolean second = tokens[i].equals("2ND");
+        if (second)
+            i++;
+        int wires = 0;
+        if (i < tokens.length && (tokens[i].equals("3W") || tokens[i].equals("4W")))
+            wires = tokens[i++].charAt(0) - '0';
+        if (tokens.length - i != 2 || !(tokens[i].equals("HW") || tokens[i].equals("SW")))
+            return null;
+        boolean hardware = tokens[i].equals("HW");
+        String bus = tokens[i + 1];
+        if (!setPinFunction.endsWith("_" + bus))
+            return null;
+
+        if (bus.equals("I2C")) {
+            if (wires != 0)
+                return null;
+            if (hardware)
+                return second ? GlcdCommProtocol.I2C_HW_2ND : GlcdCommProtocol.I2C_HW;
+            return second ? null : GlcdCommProtocol.I2C_SW;
+        } else if (!bus.equals("SPI")) {
+            return null;
+        }
+        if (wires == 0) {
+            if (hardware)
+                return second ? GlcdCommProtocol.SPI_HW_ST7920_2ND : GlcdCommProtocol.SPI_HW_4WIRE_ST7920;
+            return second ? null : GlcdCommProtocol.SPI_SW_4WIRE_ST7920;
         }
-        throw new IllegalStateException("Unable to extract vendor name from: " + displayCode);
+        if (second)
+            return (hardware && wires == 4) ? GlcdCommProtocol.SPI_HW_4WIRE_2ND : null;
+        if (wires == 4)
+            return hardware ? GlcdCommProtocol.SPI_HW_4WIRE : GlcdCommProtocol.SPI_SW_4WIRE;
+        //NOTE: From U8G2 -> 3-wire hardware spi is NOT IMPLEMENTED
+        return hardware ? GlcdCommProtocol.SPI_HW_3WIRE : GlcdCommProtocol.SPI_SW_3WIRE;
+    }
+
+    /**
+     * A parsed controller list entry
+     *
+     * @param index
+     *         The position of the entry within the controller list
+     */
+    private record ControllerEntry(int index, String name, int tileWidth, int tileHeight, String bufferLayout, String cad, String cadShort, int comMask,
+                                   String notes, List<String> displays) {
     }
 }
@@ -0,0 +1,214 @@
+package com.ibasco.ucgdisplay.tools;
+
+import com.ibasco.ucgdisplay.tools.util.AsciiCharSequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the raw contents of a single codebuild.c download and locates the named regions (e.g. the controller and interface tables) using a byte-level search.
+ * The located regions are exposed as {@link CharSequence} views backed by the same buffer.
+ *
+ * @author Rafael Ibasco
+ */
+public class CodebuildIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CodebuildIndex.class);
+
+    public static final String CONTROLLER_START_TAG = "display_controller_list_start";
+
+    public static final String CONTROLLER_END_TAG = "display_controller_list_end";
+
+    private static final CharSequence EMPTY = "";
+
+    private final ByteBuffer data;
+
+    private final Map<String, CharSequence> sections = new HashMap<>();
+
+    public CodebuildIndex(byte[] data) {
+        this(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * @param data
+     *         The contents of codebuild.c (e.g. a memory-mapped file). The region between index 0 and the limit of the buffer is used.
+     */
+    public CodebuildIndex(ByteBuffer data) {
+        this.data = data;
+    }
+
+    public int size() {
+        return data.limit();
+    }
+
+    /**
+     * @return The lines enclosed by the {@code display_controller_list_start} and {@code display_controller_list_end} markers
+     */
+    public CharSequence getControllerSection() {
+        return getSection(CONTROLLER_START_TAG, CONTROLLER_END_TAG);
+    }
+
+    /**
+     * @return The contents of the {@code struct interface interface_list[]} initializer (excluding the outer braces)
+     */
+    public CharSequence getInterfaceSection() {
+        return getArrayInitializer("interface", "interface_list");
+    }
+
+    /**
+     * Returns the lines found between the line containing the start tag and the line containing the end tag
+     *
+     * @param startTag
+     *         The marker identifying the start of the section
+     * @param endTag
+     *         The marker identifying the end of the section
+     *
+     * @return The section contents or an empty sequence if the markers could not be located
+     */
+    public CharSequence getSection(String startTag, String endTag) {
+        return sections.computeIfAbsent(startTag + ".." + endTag, k -> findSection(startTag, endTag));
+    }
+
+    /**
+     * Returns the contents of a top-level array initializer in the form of {@code struct <structName> <arrayName>[] = { ... };}
+     *
+     * @param structName
+     *         The struct type of the array
+     * @param arrayName
+     *         The name of the array variable
+     *
+     * @return The contents between the outer braces or an empty sequence if the array could not be located
+     */
+    public CharSequence getArrayInitializer(String structName, String arrayName) {
+        return sections.computeIfAbsent("struct " + structName + " " + arrayName + "[]", k -> findArrayInitializer(structName, arrayName));
+    }
+
+    private CharSequence findSection(String startTag, String endTag) {
+        int start = indexOf(ascii(startTag), 0, data.limit());
+        if (start < 0) {
+            log.warn("[CODEBUILD-INDEX] Start tag '{}' not found", startTag);
+            return EMPTY;
+        }
+        start = nextLine(start);
+        int end = indexOf(ascii(endTag), start, data.limit());
+        if (end < 0) {
+            log.warn("[CODEBUILD-INDEX] End tag '{}' not found", endTag);
+            return EMPTY;
+        }
+        end = lineStart(end);
+        log.debug("[CODEBUILD-INDEX] Found section '{}' (Offset: {}, Length: {})", startTag, start, end - start);
+        return view(start, end);
+    }
+
+    private CharSequence findArrayInitializer(String structName, String arrayName) {
+        byte[] needle = ascii(arrayName + "[]");
+        byte[] structKeyword = ascii("struct");
+        byte[] structType = ascii(structName);
+        byte[] terminator = ascii("};");
+        int pos = 0;
+        while ((pos = indexOf(needle, pos, data.limit())) >= 0) {
+            int match = pos;
+            pos += needle.length;
+            //Verify that the declaration is preceded by 'struct <structName>'
+            int typeEnd = skipWhitespaceBackward(match);
+            if (typeEnd == match || !regionMatches(typeEnd - structType.length, structType))
+                continue;
+            int keywordEnd = skipWhitespaceBackward(typeEnd - structType.length);
+            if (keywordEnd == typeEnd - structType.length || !regionMatches(keywordEnd - structKeyword.length, structKeyword))
+                continue;
+            //Expect '=' followed by '{'
+            int i = skipWhitespace(pos);
+            if (i >= data.limit() || data.get(i) != '=')
+                continue;
+            i = skipWhitespace(i + 1);
+            if (i >= data.limit() || data.get(i) != '{')
+                continue;
+            int start = i + 1;
+            int end = indexOf(terminator, start, data.limit());
+            if (end < 0)
+                break;
+            log.debug("[CODEBUILD-INDEX] Found array initializer '{}' (Offset: {}, Length: {})", arrayName, start, end - start);
+            return view(start, end);
+        }
+        log.warn("[CODEBUILD-INDEX] Array initializer 'struct {} {}[]' not found", structName, arrayName);
+        return EMPTY;
+    }
+
+    private CharSequence view(int start, int end) {
+        if (AsciiCharSequence.isAscii(data, start, end))
+            return new AsciiCharSequence(data, start, end - start);
+        return StandardCharsets.UTF_8.decode(data.slice(start, end - start)).toString();
+    }
+
+    private boolean regionMatches(int offset, byte[] bytes) {
+        if (offset < 0 || offset + bytes.length > data.limit())
+            return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (data.get(offset + i) != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    private int nextLine(int pos) {
+        while (pos < data.limit() && data.get(pos) != '\n')
+            pos++;
+        return Math.min(pos + 1, data.limit());
+    }
+
+    private int lineStart(int pos) {
+        while (pos > 0 && data.get(pos - 1) != '\n')
+            pos--;
+        return pos;
+    }
+
+    private int skipWhitespace(int pos) {
+        while (pos < data.limit() && isWhitespace(data.get(pos)))
+            pos++;
+        return pos;
+    }
+
+    private int skipWhitespaceBackward(int pos) {
+        while (pos > 0 && isWhitespace(data.get(pos - 1)))
+            pos--;
+        return pos;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Boyer-Moore-Horspool search of the needle within the specified range of the buffer
+     *
+     * @return The offset of the first match or -1 if not found
+     */
+    private int indexOf(byte[] needle, int from, int to) {
+        int n = needle.length;
+        if (n == 0)
+            return from;
+        int[] shift = new int[256];
+        for (int i = 0; i < shift.length; i++)
+            shift[i] = n;
+        for (int i = 0; i < n - 1; i++)
+            shift[needle[i] & 0xFF] = n - 1 - i;
+        int pos = from;
+        while (pos <= to - n) {
+            int j = n - 1;
+            while (j >= 0 && data.get(pos + j) == needle[j])
+                j--;
+            if (j < 0)
+                return pos;
+            pos += shift[data.get(pos + n - 1) & 0xFF];
+        }
+        return -1;
+    }
+}
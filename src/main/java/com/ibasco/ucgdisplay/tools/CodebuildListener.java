@@ -0,0 +1,39 @@
+package com.ibasco.ucgdisplay.tools;
+
+import com.ibasco.ucgdisplay.tools.beans.CommInterface;
+import com.ibasco.ucgdisplay.tools.beans.Controller;
+import com.ibasco.ucgdisplay.tools.beans.Vendor;
+import com.ibasco.ucgdisplay.tools.beans.VendorConfig;
+
+/**
+ * Receives the contents of codebuild.c while it is being parsed. The events of a controller list entry are fired as soon as its initializer closes.
+ *
+ * @author Rafael Ibasco
+ * @see CodeParser#parseCodebuild(java.io.Reader, CodebuildListener)
+ */
+public interface CodebuildListener {
+
+    /**
+     * Called the first time a controller is encountered. Vendors found in later entries are still added to the same instance.
+     */
+    default void onController(Controller controller) {
+    }
+
+    /**
+     * Called the first time a vendor (display) of a controller is encountered
+     */
+    default void onVendor(Vendor vendor) {
+    }
+
+    /**
+     * Called for every vendor configuration (one per display of each controller list entry)
+     */
+    default void onConfig(VendorConfig config) {
+    }
+
+    /**
+     * Called for every entry of the interface list, in declaration order
+     */
+    default void onInterface(CommInterface commInterface) {
+    }
+}
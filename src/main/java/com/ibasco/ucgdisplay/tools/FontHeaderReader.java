@@ -0,0 +1,163 @@
+package com.ibasco.ucgdisplay.tools;
+
+import com.ibasco.ucgdisplay.tools.CodeExtractor.FontEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the metadata stored in the leading comment block of a u8g2 font file. Only the bytes of the header are inspected, the font data that follows is never decoded.
+ * <p>
+ * Expected header format:
+ * <pre>
+ * /*
+ *   Fontname: -Misc-Fixed-Medium-R-Normal--6-60-75-75-C-40-ISO10646-1
+ *   Copyright: Public domain font.  Share and enjoy.
+ *   Glyphs: 95/1426
+ *   BBX Build Mode: 0
+ * *&#47;
+ * </pre>
+ *
+ * @author Rafael Ibasco
+ */
+public final class FontHeaderReader {
+
+    private static final Logger log = LoggerFactory.getLogger(FontHeaderReader.class);
+
+    /**
+     * The maximum number of bytes to inspect. The header is expected to be located at the start of the file.
+     */
+    public static final int MAX_HEADER_SIZE = 16 * 1024;
+
+    private static final int FIELD_COUNT = 4;
+
+    private FontHeaderReader() {
+    }
+
+    /**
+     * Parse the header of a font file
+     *
+     * @param fileName
+     *         The name of the font file
+     * @param data
+     *         The contents of the font file. Only the first {@link #MAX_HEADER_SIZE} bytes are inspected.
+     *
+     * @return The parsed {@link FontEntry} or {@code null} if the file does not contain a header
+     *
+     * @throws IllegalStateException
+     *         If the header contains less than the expected number of lines
+     */
+    public static FontEntry read(String fileName, byte[] data) {
+        return read(fileName, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Parse the header of a font file
+     *
+     * @param fileName
+     *         The name of the font file
+     * @param data
+     *         The contents of the font file (e.g. a memory-mapped region). Only the first {@link #MAX_HEADER_SIZE} bytes up to the limit of the buffer are inspected.
+     *
+     * @return The parsed {@link FontEntry} or {@code null} if the file does not contain a header
+     *
+     * @throws IllegalStateException
+     *         If the header contains less than the expected number of lines
+     */
+    public static FontEntry read(String fileName, ByteBuffer data) {
+        int limit = Math.min(data.limit(), MAX_HEADER_SIZE);
+        int start = indexOf(data, 0, limit, '/', '*');
+        if (start < 0)
+            return null;
+        start += 2;
+        int end = indexOf(data, start, limit, '*', '/');
+        if (end < 0) {
+            log.warn("[FONT-HEADER] Unable to locate the end of the header of '{}' within the first {} bytes. Skipping", fileName, limit);
+            return null;
+        }
+
+        //Trim the header contents
+        while (start < end && isWhitespace(data.get(start)))
+            start++;
+        while (end > start && isWhitespace(data.get(end - 1)))
+            end--;
+
+        int[] lineStart = new int[FIELD_COUNT];
+        int[] lineEnd = new int[FIELD_COUNT];
+        int lineCount = 0;
+        int pos = start;
+        while (lineCount < FIELD_COUNT && pos <= end) {
+            int eol = pos;
+            while (eol < end && data.get(eol) != '\n')
+                eol++;
+            lineStart[lineCount] = pos;
+            lineEnd[lineCount++] = eol;
+            pos = eol + 1;
+        }
+        if (lineCount < FIELD_COUNT)
+            throw new IllegalStateException("Invalid array length for " + fileName + " = " + lineCount);
+
+        String desc = normalizeFontDesc(extractValue(data, lineStart[0], lineEnd[0]));
+        String copyright = extractValue(data, lineStart[1], lineEnd[1]);
+        String glyphs = extractValue(data, lineStart[2], lineEnd[2]);
+        String buildMode = extractValue(data, lineStart[3], lineEnd[3]);
+
+        int glyphCount = -1;
+        int glyphTotal = -1;
+        int separator = glyphs.indexOf('/');
+        if (separator >= 0) {
+            glyphCount = parseCount(glyphs.substring(0, separator));
+            int next = glyphs.indexOf('/', separator + 1);
+            glyphTotal = parseCount(glyphs.substring(separator + 1, next < 0 ? glyphs.length() : next));
+        }
+        return new FontEntry(fileName, desc, copyright, glyphCount, glyphTotal, buildMode);
+    }
+
+    /**
+     * @return The value after the first ':' (up to the next ':') or the whole line if the line does not contain a ':'
+     */
+    private static String extractValue(ByteBuffer data, int start, int end) {
+        int colon = indexOf(data, start, end, ':');
+        if (colon < 0)
+            return decode(data, start, end);
+        int next = indexOf(data, colon + 1, end, ':');
+        return decode(data, colon + 1, next < 0 ? end : next).trim();
+    }
+
+    private static String decode(ByteBuffer data, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        data.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String normalizeFontDesc(String data) {
+        return data.replace('-', ' ').replace('_', ' ').trim();
+    }
+
+    private static int parseCount(String value) {
+        value = value.trim();
+        return value.isEmpty() ? -1 : Integer.parseInt(value);
+    }
+
+    private static int indexOf(ByteBuffer data, int from, int to, char c) {
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+    private static int indexOf(ByteBuffer data, int from, int to, char first, char second) {
+        for (int i = from; i < to - 1; i++) {
+            if (data.get(i) == first && data.get(i + 1) == second)
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f';
+    }
+}
@@ -0,0 +1,179 @@
+package com.ibasco.ucgdisplay.tools;
+
+import com.ibasco.ucgdisplay.tools.CodeExtractor.FontEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * A bounded producer/consumer pipeline for parsing font files. The caller submits the raw contents of each font file (the producer stage)
+ * while a pool of workers parses them into {@link FontEntry} records. Submission blocks once the queue is full, so the amount of memory
+ * held by pending font files stays bounded. The results are returned in submission order, or in the order of the positions given by
+ * concurrent producers (see {@link #submit(int, String, byte[])}).
+ *
+ * @author Rafael Ibasco
+ */
+public class FontParsingPipeline implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FontParsingPipeline.class);
+
+    private static final Task POISON = new Task(-1, null, null);
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final BiFunction<String, byte[], FontEntry> parser;
+
+    private final BlockingQueue<Task> queue;
+
+    private final ExecutorService executor;
+
+    private final List<Future<?>> workers = new ArrayList<>();
+
+    private final Map<Integer, FontEntry> results = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile boolean finished;
+
+    private record Task(int sequence, String fileName, byte[] data) {
+    }
+
+    public FontParsingPipeline(BiFunction<String, byte[], FontEntry> parser) {
+        this(parser, Runtime.getRuntime().availableProcessors());
+    }
+
+    public FontParsingPipeline(BiFunction<String, byte[], FontEntry> parser, int workerCount) {
+        this(parser, workerCount, workerCount * 4);
+    }
+
+    public FontParsingPipeline(BiFunction<String, byte[], FontEntry> parser, int workerCount, int queueCapacity) {
+        if (workerCount <= 0)
+            throw new IllegalArgumentException("Worker count must be greater than zero");
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException("Queue capacity must be greater than zero");
+        this.parser = parser;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "font-parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++)
+            workers.add(executor.submit(this::work));
+        log.debug("[FONT-PIPELINE] Started {} workers (Queue capacity: {})", workerCount, queueCapacity);
+    }
+
+    /**
+     * Queue a font file for parsing. Blocks while the queue is full.
+     *
+     * @param fileName
+     *         The name of the font file
+     * @param data
+     *         The raw contents of the font file
+     *
+     * @throws IOException
+     *         If one of the workers has failed or the thread was interrupted while waiting
+     */
+    public void submit(String fileName, byte[] data) throws IOException {
+        submit(size.get(), fileName, data);
+    }
+
+    /**
+     * Queue a font file for parsing at the specified position of the results. Unlike {@link #submit(String, byte[])}, this may be called by
+     * several producers concurrently, each position must only be submitted once. Blocks while the queue is full.
+     *
+     * @param position
+     *         The position of the font file in the results
+     * @param fileName
+     *         The name of the font file
+     * @param data
+     *         The raw contents of the font file
+     *
+     * @throws IOException
+     *         If one of the workers has failed or the thread was interrupted while waiting
+     */
+    public void submit(int position, String fileName, byte[] data) throws IOException {
+        if (finished)
+            throw new IllegalStateException("Pipeline has already been finished");
+        if (position < 0)
+            throw new IllegalArgumentException("Position must not be negative");
+        size.accumulateAndGet(position + 1, Math::max);
+        put(new Task(position, fileName, data));
+    }
+
+    /**
+     * Wait for all submitted font files to be parsed
+     *
+     * @return The parsed font entries in submission (or position) order. Files that did not contain a header are skipped.
+     *
+     * @throws IOException
+     *         If one of the workers has failed
+     */
+    public List<FontEntry> finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            for (int i = 0; i < workers.size(); i++)
+                put(POISON);
+        }
+        for (Future<?> worker : workers)
+            await(worker);
+        List<FontEntry> fontEntries = new ArrayList<>(results.size());
+        for (int i = 0; i < size.get(); i++) {
+            FontEntry entry = results.get(i);
+            if (entry != null)
+                fontEntries.add(entry);
+        }
+        return fontEntries;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private Void work() throws InterruptedException {
+        Task task;
+        while ((task = queue.take()) != POISON) {
+            FontEntry entry = parser.apply(task.fileName(), task.data());
+            if (entry != null)
+                results.put(task.sequence(), entry);
+        }
+        return null;
+    }
+
+    private void put(Task task) throws IOException {
+        try {
+            while (!queue.offer(task, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                //A worker only completes early if it has failed, in which case the queue would never drain
+                for (Future<?> worker : workers) {
+                    if (worker.isDone())
+                        await(worker);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing font file", e);
+        }
+    }
+
+    private void await(Future<?> worker) throws IOException {
+        try {
+            worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for font parser", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException("Font parser failed", e.getCause());
+        }
+    }
+}
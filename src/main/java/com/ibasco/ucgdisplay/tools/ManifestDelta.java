@@ -0,0 +1,187 @@
+package com.ibasco.ucgdisplay.tools;
+
+import static com.ibasco.ucgdisplay.tools.util.StringUtils.isBlank;
+
+import com.ibasco.ucgdisplay.tools.beans.Controller;
+import com.ibasco.ucgdisplay.tools.beans.GlcdCommInfo;
+import com.ibasco.ucgdisplay.tools.beans.Vendor;
+import com.ibasco.ucgdisplay.tools.beans.VendorConfig;
+import org.slf4j.Logger;
+
+import java.util.*;
+
+/**
+ * The structural difference between the controllers (and fonts) of the previous run and the current run. Controllers and vendors are matched
+ * by name (case-insensitive), configurations by their cad name pair and fonts by their key.
+ *
+ * @author Rafael Ibasco
+ */
+public class ManifestDelta {
+
+    public enum ChangeType {
+        ADDED("+"),
+        REMOVED("-"),
+        CHANGED("~");
+
+        private final String symbol;
+
+        ChangeType(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    /**
+     * A single difference
+     *
+     * @param type
+     *         The type of change
+     * @param path
+     *         The path of the changed element (e.g. {@code controller/SSD1306/128X64_NONAME})
+     * @param detail
+     *         A description of the changed properties, empty for added or removed elements
+     */
+    public record Change(ChangeType type, String path, String detail) {
+        @Override
+        public String toString() {
+            return type.getSymbol() + " " + path + (detail.isEmpty() ? "" : " (" + detail + ")");
+        }
+    }
+
+    private final List<Change> controllerChanges = new ArrayList<>();
+
+    private final List<Change> fontChanges = new ArrayList<>();
+
+    public List<Change> getControllerChanges() {
+        return Collections.unmodifiableList(controllerChanges);
+    }
+
+    public List<Change> getFontChanges() {
+        return Collections.unmodifiableList(fontChanges);
+    }
+
+    public boolean hasControllerChanges() {
+        return !controllerChanges.isEmpty();
+    }
+
+    public boolean hasFontChanges() {
+        return !fontChanges.isEmpty();
+    }
+
+    /**
+     * Compare the controllers, vendors and vendor configurations of the previous manifest against the current ones
+     */
+    public void compareControllers(List<Controller> previous, List<Controller> current) {
+        Map<String, Controller> previousMap = indexByName(previous);
+        Map<String, Controller> currentMap = indexByName(current);
+        for (var entry : previousMap.entrySet()) {
+            if (!currentMap.containsKey(entry.getKey()))
+                controllerChanges.add(new Change(ChangeType.REMOVED, "controller/" + entry.getKey(), ""));
+        }
+        for (var entry : currentMap.entrySet()) {
+            Controller previousController = previousMap.get(entry.getKey());
+            if (previousController == null) {
+                controllerChanges.add(new Change(ChangeType.ADDED, "controller/" + entry.getKey(), ""));
+            } else {
+                compareVendors("controller/" + entry.getKey(), previousController, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Compare the fonts of the previous run against the current ones
+     *
+     * @param previous
+     *         The fingerprint of each font (metadata) keyed by the font key
+     * @param current
+     *         The fingerprint of each font (metadata) keyed by the font key
+     */
+    public void compareFonts(Map<String, String> previous, Map<String, String> current) {
+        for (String key : new TreeSet<>(previous.keySet())) {
+            if (!current.containsKey(key))
+                fontChanges.add(new Change(ChangeType.REMOVED, "font/" + key, ""));
+        }
+        for (String key : new TreeSet<>(current.keySet())) {
+            String previousFingerprint = previous.get(key);
+            if (previousFingerprint == null) {
+                fontChanges.add(new Change(ChangeType.ADDED, "font/" + key, ""));
+            } else if (!previousFingerprint.equals(current.get(key))) {
+                fontChanges.add(new Change(ChangeType.CHANGED, "font/" + key, previousFingerprint + " -> " + current.get(key)));
+            }
+        }
+    }
+
+    public void log(Logger log) {
+        log.info("[DELTA] Controller changes: {}, Font changes: {}", controllerChanges.size(), fontChanges.size());
+        for (Change change : controllerChanges)
+            log.info("[DELTA] {}", change);
+        for (Change change : fontChanges)
+            log.info("[DELTA] {}", change);
+    }
+
+    private void compareVendors(String path, Controller previous, Controller current) {
+        for (Vendor vendor : previous.getVendorList()) {
+            if (current.getVendor(vendor.getName()) == null)
+                controllerChanges.add(new Change(ChangeType.REMOVED, path + "/" + vendor.getName(), ""));
+        }
+        for (Vendor vendor : current.getVendorList()) {
+            Vendor previousVendor = previous.getVendor(vendor.getName());
+            String vendorPath = path + "/" + vendor.getName();
+            if (previousVendor == null) {
+                controllerChanges.add(new Change(ChangeType.ADDED, vendorPath, ""));
+                continue;
+            }
+            List<String> details = new ArrayList<>();
+            compareProperty(details, "tileWidth", previousVendor.getTileWidth(), vendor.getTileWidth());
+            compareProperty(details, "tileHeight", previousVendor.getTileHeight(), vendor.getTileHeight());
+            compareProperty(details, "bufferLayout", previousVendor.getBufferLayout(), vendor.getBufferLayout());
+            compareProperty(details, "notes", previousVendor.getNotes(), vendor.getNotes());
+            if (!details.isEmpty())
+                controllerChanges.add(new Change(ChangeType.CHANGED, vendorPath, String.join(", ", details)));
+            compareConfigs(vendorPath, previousVendor, vendor);
+        }
+    }
+
+    private void compareConfigs(String path, Vendor previous, Vendor current) {
+        Map<String, VendorConfig> previousConfigs = indexConfigs(previous);
+        Map<String, VendorConfig> currentConfigs = indexConfigs(current);
+        for (String key : previousConfigs.keySet()) {
+            if (!currentConfigs.containsKey(key))
+                controllerChanges.add(new Change(ChangeType.REMOVED, path + "/" + key, ""));
+        }
+        for (var entry : currentConfigs.entrySet()) {
+            VendorConfig previousConfig = previousConfigs.get(entry.getKey());
+            if (previousConfig == null) {
+                controllerChanges.add(new Change(ChangeType.ADDED, path + "/" + entry.getKey(), ""));
+            } else if (previousConfig.getSupportedInterfaceMask() != entry.getValue().getSupportedInterfaceMask()) {
+                String detail = String.format("interfaces: %s -> %s", GlcdCommInfo.toExpression(previousConfig.getSupportedInterfaceMask(), "|"),
+                                              GlcdCommInfo.toExpression(entry.getValue().getSupportedInterfaceMask(), "|"));
+                controllerChanges.add(new Change(ChangeType.CHANGED, path + "/" + entry.getKey(), detail));
+            }
+        }
+    }
+
+    private static void compareProperty(List<String> details, String name, Object previous, Object current) {
+        if (!Objects.equals(previous, current))
+            details.add(String.format("%s: '%s' -> '%s'", name, previous, current));
+    }
+
+    private static Map<String, Controller> indexByName(List<Controller> controllers) {
+        Map<String, Controller> map = new TreeMap<>();
+        for (Controller controller : controllers)
+            map.put(controller.getName().toUpperCase(), controller);
+        return map;
+    }
+
+    private static Map<String, VendorConfig> indexConfigs(Vendor vendor) {
+        Map<String, VendorConfig> map = new LinkedHashMap<>();
+        for (VendorConfig config : vendor.getVendorConfigs()) {
+            String key = config.getCadName() + (isBlank(config.getCadNameShort()) ? "" : ":" + config.getCadNameShort());
+            map.put(key, config);
+        }
+        return map;
+    }
+}
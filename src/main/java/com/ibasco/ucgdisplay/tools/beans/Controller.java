@@ -6,7 +6,12 @@ public class Controller implements Comparable<Controller> {
 
     private String name;
 
-    private Set<Vendor> vendorList = new HashSet<>();
+    private Set<Vendor> vendorList = new LinkedHashSet<>();
+
+    /**
+     * Vendors keyed by their upper-case name
+     */
+    private transient Map<String, Vendor> vendorIndex = new HashMap<>();
 
     public Controller(String name) {
         this.name = name;
@@ -16,8 +21,49 @@ public class Controller implements Comparable<Controller> {
         return name;
     }
 
+    /**
+     * @return A read-only view of the vendors in insertion order
+     */
     public Set<Vendor> getVendorList() {
-        return vendorList;
+        return Collections.unmodifiableSet(vendorList);
+    }
+
+    /**
+     * Lookup a vendor by name (case-insensitive)
+     *
+     * @param name
+     *         The name of the vendor
+     *
+     * @return The {@link Vendor} or {@code null} if not found
+     */
+    public Vendor getVendor(String name) {
+        return getVendorIndex().get(name.toUpperCase());
+    }
+
+    /**
+     * Add a vendor to this controller. Vendors are unique by name (case-insensitive), the existing entry is kept if one is already present.
+     *
+     * @param vendor
+     *         The vendor to add
+     *
+     * @return The {@link Vendor} registered under the name
+     */
+    public Vendor addVendor(Vendor vendor) {
+        Vendor existing = getVendorIndex().putIfAbsent(vendor.getName().toUpperCase(), vendor);
+        if (existing != null)
+            return existing;
+        vendorList.add(vendor);
+        return vendor;
+    }
+
+    private Map<String, Vendor> getVendorIndex() {
+        //The transient index is not restored on deserialization, rebuild it on first access
+        if (vendorIndex == null) {
+            vendorIndex = new HashMap<>();
+            for (Vendor vendor : vendorList)
+                vendorIndex.putIfAbsent(vendor.getName().toUpperCase(), vendor);
+        }
+        return vendorIndex;
     }
 
     @Override
@@ -0,0 +1,98 @@
+package com.ibasco.ucgdisplay.tools.beans;
+
+import java.util.Map;
+
+/**
+ * The inputs of the last successful code generation run
+ */
+public class GeneratorState {
+
+    private String branch;
+
+    private String commitSha;
+
+    private String inputHash;
+
+    /**
+     * The fingerprint of the local source directory, {@code null} when the sources are fetched from Github
+     */
+    private String sourceFingerprint;
+
+    private String lastUpdated;
+
+    /**
+     * The fingerprint of the metadata of each font keyed by the font key
+     */
+    private Map<String, String> fonts;
+
+    private String interfacesHash;
+
+    /**
+     * The hash of the font names listed in the tree, from which the C++ font lookup is generated
+     */
+    private String lookupFontsHash;
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public void setBranch(String branch) {
+        this.branch = branch;
+    }
+
+    public String getCommitSha() {
+        return commitSha;
+    }
+
+    public void setCommitSha(String commitSha) {
+        this.commitSha = commitSha;
+    }
+
+    public String getInputHash() {
+        return inputHash;
+    }
+
+    public void setInputHash(String inputHash) {
+        this.inputHash = inputHash;
+    }
+
+    public String getSourceFingerprint() {
+        return sourceFingerprint;
+    }
+
+    public void setSourceFingerprint(String sourceFingerprint) {
+        this.sourceFingerprint = sourceFingerprint;
+    }
+
+    public String getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(String lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    public Map<String, String> getFonts() {
+        return fonts;
+    }
+
+    public void setFonts(Map<String, String> fonts) {
+        this.fonts = fonts;
+    }
+
+    public String getInterfacesHash() {
+        return interfacesHash;
+    }
+
+    public void setInterfacesHash(String interfacesHash) {
+        this.interfacesHash = interfacesHash;
+    }
+
+    public String getLookupFontsHash() {
+        return lookupFontsHash;
+    }
+
+    public void setLookupFontsHash(String lookupFontsHash) {
+        this.lookupFontsHash = lookupFontsHash;
+    }
+}
@@ -1,5 +1,91 @@
 package com.ibasco.ucgdisplay.tools.beans;
 
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The COM_* bus interface flags declared in codebuild.c
+ *
+ * @author Rafael Ibasco
+ */
 public enum GlcdCommInfo {
+    COM_4WSPI(0x0001, "4-Wire SPI protocol"),
+    COM_3WSPI(0x0002, "3-Wire SPI protocol"),
+    COM_6800(0x0004, "Parallel 8-bit 6800 protocol"),
+    COM_8080(0x0008, "Parallel 8-bit 8080 protocol"),
+    COM_I2C(0x0010, "I2C protocol"),
+    COM_ST7920SPI(0x0020, "SPI protocol for ST7920"),
+    COM_UART(0x0040, "Serial/UART protocol"),
+    COM_KS0108(0x0080, "Parallel 6800 protocol for KS0108 (more chip-select lines)"),
+    COM_SED1520(0x0100, "Special protocol for SED1520");
+
+    private static final GlcdCommInfo[] VALUES = values();
+
+    private static final Map<String, GlcdCommInfo> NAMES = new HashMap<>();
+
+    /**
+     * Mask of all known flags
+     */
+    public static final int ALL = 0x01FF;
+
+    static {
+        for (GlcdCommInfo info : VALUES)
+            NAMES.put(info.name(), info);
+    }
+
+    private final int value;
+
+    private final String description;
+
+    GlcdCommInfo(int value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @param name
+     *         The name of the flag as declared in codebuild.c (e.g. {@code COM_I2C})
+     *
+     * @return The matching {@link GlcdCommInfo} or {@code null} if the name is unknown
+     */
+    public static GlcdCommInfo fromName(String name) {
+        return NAMES.get(name);
+    }
+
+    /**
+     * @return The flags contained in the mask
+     */
+    public static Set<GlcdCommInfo> fromMask(int mask) {
+        EnumSet<GlcdCommInfo> result = EnumSet.noneOf(GlcdCommInfo.class);
+        for (GlcdCommInfo info : VALUES) {
+            if ((mask & info.value) != 0)
+                result.add(info);
+        }
+        return result;
+    }
 
+    /**
+     * @return The mask rendered as a C/Java bitwise-or expression in flag order (e.g. {@code COM_4WSPI | COM_I2C})
+     */
+    public static String toExpression(int mask, String separator) {
+        StringBuilder expression = new StringBuilder();
+        for (GlcdCommInfo info : VALUES) {
+            if ((mask & info.value) == 0)
+                continue;
+            if (expression.length() > 0)
+                expression.append(separator);
+            expression.append(info.name());
+        }
+        return expression.toString();
+    }
 }
@@ -1,11 +1,13 @@
 package com.ibasco.ucgdisplay.tools.beans;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.ibasco.ucgdisplay.tools.util.CommInterfaceMaskAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public class VendorConfig {
 
@@ -17,7 +19,12 @@ public class VendorConfig {
 
     private String cadNameShort;
 
-    private List<Comm> supportedInterfaces = new ArrayList<>();
+    /**
+     * Bitmask of the supported {@link GlcdCommInfo} flags, serialized as the list of flags
+     */
+    @SerializedName("supportedInterfaces")
+    @JsonAdapter(CommInterfaceMaskAdapter.class)
+    private int supportedInterfaceMask;
 
     public Vendor getVendor() {
         return vendor;
@@ -27,12 +34,37 @@ public class VendorConfig {
         this.vendor = vendor;
     }
 
-    public List<Comm> getSupportedInterfaces() {
-        return supportedInterfaces;
+    /**
+     * @return A copy of the supported bus interfaces
+     */
+    public Set<GlcdCommInfo> getSupportedInterfaces() {
+        return GlcdCommInfo.fromMask(supportedInterfaceMask);
     }
 
-    public void setSupportedInterfaces(List<Comm> supportedInterfaces) {
-        this.supportedInterfaces = supportedInterfaces;
+    public int getSupportedInterfaceMask() {
+        return supportedInterfaceMask;
+    }
+
+    public void setSupportedInterfaceMask(int supportedInterfaceMask) {
+        this.supportedInterfaceMask = supportedInterfaceMask;
+    }
+
+    public void addSupportedInterface(GlcdCommInfo commInfo) {
+        this.supportedInterfaceMask |= commInfo.getValue();
+    }
+
+    /**
+     * @param mask
+     *         One or more {@link GlcdCommInfo} values combined with a bitwise-or
+     *
+     * @return {@code true} if all the interfaces in the mask are supported
+     */
+    public boolean supports(int mask) {
+        return (supportedInterfaceMask & mask) == mask;
+    }
+
+    public boolean supports(GlcdCommInfo commInfo) {
+        return supports(commInfo.getValue());
     }
 
     public String getCadName() {
@@ -0,0 +1,262 @@
+package com.ibasco.ucgdisplay.tools.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.*;
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compiles generated sources in memory and reports how close each resulting class is to the limits of the class file format: the size of the
+ * constant pool, the number of fields and methods (65535 each) and the size of the bytecode of a single method (65535 bytes, which the static
+ * initializer of a large enum is the first to reach).
+ * <p>
+ * Requires a JDK, the check is skipped when no system compiler is available.
+ * </p>
+ *
+ * @author Rafael Ibasco
+ */
+public class ClassFileLimitCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(ClassFileLimitCheck.class);
+
+    public static final int MAX_CONSTANT_POOL_SIZE = 65535;
+
+    public static final int MAX_MEMBER_COUNT = 65535;
+
+    public static final int MAX_CODE_LENGTH = 65535;
+
+    private double warningThreshold = 0.8;
+
+    /**
+     * The usage of the class file limits by a single class
+     *
+     * @param className
+     *         The binary name of the class
+     * @param constantPoolSize
+     *         The number of constant pool entries
+     * @param fieldCount
+     *         The number of fields
+     * @param methodCount
+     *         The number of methods
+     * @param largestMethod
+     *         The name of the method with the largest bytecode (e.g. {@code <clinit>})
+     * @param largestMethodSize
+     *         The size of the bytecode of the largest method
+     */
+    public record ClassUsage(String className, int constantPoolSize, int fieldCount, int methodCount, String largestMethod, int largestMethodSize) {
+
+        /**
+         * @return The highest ratio between a value and its limit
+         */
+        public double getUsage() {
+            double usage = (double) constantPoolSize / MAX_CONSTANT_POOL_SIZE;
+            usage = Math.max(usage, (double) fieldCount / MAX_MEMBER_COUNT);
+            usage = Math.max(usage, (double) methodCount / MAX_MEMBER_COUNT);
+            return Math.max(usage, (double) largestMethodSize / MAX_CODE_LENGTH);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: constant pool %d/%d (%.1f%%), fields %d, methods %d, largest method %s %d/%d bytes (%.1f%%)", className,
+                                 constantPoolSize, MAX_CONSTANT_POOL_SIZE, percent(constantPoolSize, MAX_CONSTANT_POOL_SIZE), fieldCount, methodCount,
+                                 largestMethod, largestMethodSize, MAX_CODE_LENGTH, percent(largestMethodSize, MAX_CODE_LENGTH));
+        }
+
+        private static double percent(int value, int limit) {
+            return value * 100.0 / limit;
+        }
+    }
+
+    public double getWarningThreshold() {
+        return warningThreshold;
+    }
+
+    /**
+     * @param warningThreshold
+     *         The usage (between 0 and 1) from which a class is reported as a warning
+     */
+    public void setWarningThreshold(double warningThreshold) {
+        this.warningThreshold = warningThreshold;
+    }
+
+    /**
+     * Compile the sources against the class path of the running application and log the usage of each class
+     *
+     * @param sources
+     *         The source files keyed by their path relative to the source root (e.g. {@code com/ibasco/ucgdisplay/drivers/glcd/Glcd.java})
+     *
+     * @return The usage of each compiled class (including nested classes) or an empty list if no compiler is available
+     *
+     * @throws IllegalStateException
+     *         If a class exceeds the limits, in which case it cannot be compiled (e.g. "code too large")
+     */
+    public List<ClassUsage> check(Map<String, Path> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            log.warn("[LIMITS] No system java compiler available (not running on a JDK). Class file limits not checked");
+            return List.of();
+        }
+        var compilationUnits = new ArrayList<JavaFileObject>();
+        for (var source : sources.entrySet())
+            compilationUnits.add(new SourceFile(source.getKey(), source.getValue()));
+
+        //Sources which do not compile for other reasons than the limits (e.g. a dependency missing from the class path) are left out
+        var classFiles = new TreeMap<String, ByteArrayOutputStream>();
+        while (!compilationUnits.isEmpty()) {
+            classFiles.clear();
+            var diagnostics = compile(compiler, compilationUnits, classFiles);
+            if (diagnostics.isEmpty())
+                break;
+            var limitErrors = new StringBuilder();
+            for (var diagnostic : diagnostics) {
+                if (diagnostic.getCode() != null && diagnostic.getCode().startsWith("compiler.err.limit."))
+                    limitErrors.append(System.lineSeparator()).append(diagnostic);
+            }
+            if (limitErrors.length() > 0)
+                throw new IllegalStateException("Generated sources exceed the class file limits:" + limitErrors);
+            for (var diagnostic : diagnostics) {
+                if (diagnostic.getSource() != null && compilationUnits.remove(diagnostic.getSource()))
+                    log.warn("[LIMITS] Skipped {}, it does not compile against the class path of the generator: {}", diagnostic.getSource().getName(), diagnostic.getMessage(null));
+            }
+        }
+
+        var result = new ArrayList<ClassUsage>();
+        for (var classFile : classFiles.entrySet()) {
+            ClassUsage usage = analyze(classFile.getKey(), classFile.getValue().toByteArray());
+            if (usage.getUsage() >= warningThreshold) {
+                log.warn("[LIMITS] {}", usage);
+            } else {
+                log.info("[LIMITS] {}", usage);
+            }
+            result.add(usage);
+        }
+        return result;
+    }
+
+    /**
+     * @return The errors reported by the compiler, empty if the compilation succeeded
+     */
+    private List<Diagnostic<? extends JavaFileObject>> compile(JavaCompiler compiler, List<JavaFileObject> compilationUnits, Map<String, ByteArrayOutputStream> classFiles) throws IOException {
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        try (var fileManager = new ForwardingJavaFileManager<>(compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return classFiles.computeIfAbsent(className, k -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        }) {
+            var options = List.of("-proc:none", "-classpath", System.getProperty("java.class.path"));
+            if (compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits).call())
+                return List.of();
+        }
+        var errors = new ArrayList<Diagnostic<? extends JavaFileObject>>();
+        for (var diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                errors.add(diagnostic);
+        }
+        //The compiler may fail without reporting an error (e.g. with -Werror), do not retry forever
+        if (errors.isEmpty())
+            throw new IllegalStateException("Generated sources failed to compile");
+        return errors;
+    }
+
+    /**
+     * Read the limit related values of a class file
+     *
+     * @param className
+     *         The name of the class, used for reporting
+     * @param classFile
+     *         The contents of the class file
+     */
+    public static ClassUsage analyze(String className, byte[] classFile) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != 0xCAFEBABE)
+            throw new IllegalStateException("Not a class file: " + className);
+        in.readUnsignedShort(); //minor version
+        in.readUnsignedShort(); //major version
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8 = new String[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8[i] = in.readUTF();
+                case 7, 8, 16, 19, 20 -> in.skipBytes(2);
+                case 15 -> in.skipBytes(3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipBytes(4);
+                case 5, 6 -> {
+                    //Long and double constants take up two entries
+                    in.skipBytes(8);
+                    i++;
+                }
+                default -> throw new IllegalStateException(String.format("Unknown constant pool tag %d in class file %s", tag, className));
+            }
+        }
+        in.skipBytes(6); //access flags, this class, super class
+        in.skipBytes(2 * in.readUnsignedShort()); //interfaces
+
+        int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            in.skipBytes(6);
+            skipAttributes(in);
+        }
+
+        int methodCount = in.readUnsignedShort();
+        String largestMethod = "";
+        int largestMethodSize = 0;
+        for (int i = 0; i < methodCount; i++) {
+            in.skipBytes(2);
+            String name = utf8[in.readUnsignedShort()];
+            in.skipBytes(2);
+            int attributeCount = in.readUnsignedShort();
+            for (int a = 0; a < attributeCount; a++) {
+                String attributeName = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+                if ("Code".equals(attributeName)) {
+                    in.skipBytes(4); //max stack, max locals
+                    int codeLength = in.readInt();
+                    if (codeLength > largestMethodSize) {
+                        largestMethod = name;
+                        largestMethodSize = codeLength;
+                    }
+                    in.skipBytes(length - 8);
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+        }
+        return new ClassUsage(className, constantPoolCount - 1, fieldCount, methodCount, largestMethod, largestMethodSize);
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            in.skipBytes(2);
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final Path path;
+
+        private SourceFile(String name, Path path) {
+            super(URI.create("source:///" + name), Kind.SOURCE);
+            this.path = path;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+            return Files.readString(path);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.ibasco.ucgdisplay.tools.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.ibasco.ucgdisplay.tools.service.HttpCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the duration and throughput of each stage of a code generation run. Every completed stage is committed as a {@link StageEvent}
+ * to the flight recorder (when a recording is active) and added to the summary, which can be written as JSON at the end of the run.
+ * <p>
+ * The stages of a run are sequential. Stages may still be nested when a caller records a stage around code which records its own (e.g.
+ * {@code CodeGenerator#generateGlcdFontEnum(String, List)} downloads and scans the font archive), in which case their durations overlap.
+ * </p>
+ *
+ * @author Rafael Ibasco
+ */
+public class PerformanceReport {
+
+    private static final Logger log = LoggerFactory.getLogger(PerformanceReport.class);
+
+    private static final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private final String startTime = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now());
+
+    private final long startNanos = System.nanoTime();
+
+    private final List<StageSummary> stages = new ArrayList<>();
+
+    private HttpCache httpCache;
+
+    /**
+     * The JSON document written by {@link #write(Path)}
+     */
+    private static class Summary {
+
+        private String startTime;
+
+        private double durationMillis;
+
+        private List<StageSummary> stages;
+    }
+
+    public static class StageSummary {
+
+        private String name;
+
+        private double durationMillis;
+
+        private long bytes;
+
+        private long entries;
+
+        private long cacheHits;
+
+        private long allocatedBytes;
+
+        private double bytesPerSecond;
+
+        private double entriesPerSecond;
+
+        public String getName() {
+            return name;
+        }
+
+        public double getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        /**
+         * @return The number of bytes allocated by all threads while the stage was running (including the worker pools the stage hands work to) or -1
+         * if not supported by the JVM. Allocations of threads which terminated before the stage completed are not included and stages running at
+         * the same time count each other's allocations.
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        public double getEntriesPerSecond() {
+            return entriesPerSecond;
+        }
+    }
+
+    /**
+     * A running stage. Closing the stage completes it.
+     */
+    public final class Stage implements AutoCloseable {
+
+        private final StageEvent event = new StageEvent();
+
+        private final long startNanos = System.nanoTime();
+
+        private final Map<Long, Long> startAllocated = allocatedBytes();
+
+        private final long startHits = (httpCache != null) ? httpCache.getHitCount() : 0;
+
+        private final long startDownloaded = (httpCache != null) ? httpCache.getDownloadedBytes() : 0;
+
+        private long bytes;
+
+        private long entries;
+
+        private boolean closed;
+
+        private Stage(String name) {
+            event.stage = name;
+            event.begin();
+        }
+
+        /**
+         * Add to the number of bytes processed by this stage. Bytes downloaded through the {@link HttpCache} are accounted automatically.
+         */
+        public Stage addBytes(long bytes) {
+            this.bytes += bytes;
+            return this;
+        }
+
+        public Stage addEntries(long entries) {
+            this.entries += entries;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            event.end();
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            StageSummary summary = new StageSummary();
+            summary.name = event.stage;
+            summary.durationMillis = elapsedNanos / 1_000_000d;
+            summary.bytes = bytes;
+            summary.entries = entries;
+            if (httpCache != null) {
+                summary.bytes += httpCache.getDownloadedBytes() - startDownloaded;
+                summary.cacheHits = httpCache.getHitCount() - startHits;
+            }
+            summary.allocatedBytes = allocatedBytesSince(startAllocated);
+            if (elapsedNanos > 0) {
+                summary.bytesPerSecond = summary.bytes * 1e9 / elapsedNanos;
+                summary.entriesPerSecond = summary.entries * 1e9 / elapsedNanos;
+            }
+
+            if (event.shouldCommit()) {
+                event.bytes = summary.bytes;
+                event.entries = summary.entries;
+                event.cacheHits = summary.cacheHits;
+                event.allocatedBytes = summary.allocatedBytes;
+                event.commit();
+            }
+            synchronized (stages) {
+                stages.add(summary);
+            }
+            log.debug("[REPORT] Stage '{}' completed in {} ms (Bytes: {}, Entries: {}, Cache Hits: {}, Allocated: {})", summary.name, String.format("%.3f", summary.durationMillis),
+                      summary.bytes, summary.entries, summary.cacheHits, summary.allocatedBytes);
+        }
+    }
+
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    /**
+     * @param httpCache
+     *         The cache whose hits and downloaded bytes are attributed to the stages running while they occur
+     */
+    public void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    /**
+     * Start a new stage. Use with try-with-resources so the stage is completed even if it fails.
+     *
+     * @param name
+     *         The name of the stage (e.g. {@code parse-codebuild})
+     *
+     * @return The running {@link Stage}
+     */
+    public Stage start(String name) {
+        return new Stage(name);
+    }
+
+    /**
+     * @return A snapshot of the completed stages in order of completion
+     */
+    public List<StageSummary> getStages() {
+        synchronized (stages) {
+            return new ArrayList<>(stages);
+        }
+    }
+
+    /**
+     * Write the summary of the completed stages as JSON
+     *
+     * @param file
+     *         The output file
+     *
+     * @throws IOException
+     *         When the file could not be written
+     */
+    public void write(Path file) throws IOException {
+        Summary summary = new Summary();
+        summary.startTime = startTime;
+        summary.durationMillis = (System.nanoTime() - startNanos) / 1_000_000d;
+        summary.stages = getStages();
+        Files.writeString(file, gson.toJson(summary));
+        log.info("[REPORT] Performance report written to '{}'", file);
+    }
+
+    /**
+     * @return The number of bytes allocated so far by each live thread, keyed by thread id, or {@code null} if not supported by the JVM
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        if (threadBean == null)
+            return null;
+        long[] threadIds = threadBean.getAllThreadIds();
+        long[] allocated = threadBean.getThreadAllocatedBytes(threadIds);
+        Map<Long, Long> result = new HashMap<>(threadIds.length * 2);
+        for (int i = 0; i < threadIds.length; i++) {
+            if (allocated[i] >= 0)
+                result.put(threadIds[i], allocated[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of bytes allocated by the live threads since the snapshot, threads started afterwards count from zero
+     */
+    private static long allocatedBytesSince(Map<Long, Long> start) {
+        if (start == null)
+            return -1;
+        long total = 0;
+        for (var thread : allocatedBytes().entrySet())
+            total += thread.getValue() - start.getOrDefault(thread.getKey(), 0L);
+        return total;
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        var bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported())
+            return (com.sun.management.ThreadMXBean) bean;
+        return null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ibasco.ucgdisplay.tools.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * JDK Flight Recorder event emitted for each stage of a code generation run (e.g. {@code jcmd <pid> JFR.start} or {@code -XX:StartFlightRecording})
+ *
+ * @author Rafael Ibasco
+ * @see PerformanceReport
+ */
+@Name("com.ibasco.ucgdisplay.tools.Stage")
+@Label("Code Generator Stage")
+@Category({"UCGDisplay", "Code Generator"})
+@Description("A stage of the code generation pipeline (download, parsing, generation or export)")
+@StackTrace(false)
+public class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Bytes")
+    @Description("The number of bytes transferred or processed by the stage")
+    @DataAmount
+    long bytes;
+
+    @Label("Entries")
+    @Description("The number of entries processed by the stage (controllers, fonts, files...)")
+    long entries;
+
+    @Label("Cache Hits")
+    @Description("The number of HTTP requests served from the cache")
+    long cacheHits;
+
+    @Label("Allocated")
+    @Description("The number of bytes allocated by the thread running the stage")
+    @DataAmount
+    long allocatedBytes;
+}
@@ -15,8 +15,11 @@ import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 public class GithubService {
 
@@ -28,17 +31,131 @@ public class GithubService {
 
     public static final String REPO_OWNER = "ribasco";
 
+    private HttpCache httpCache;
+
+    private Path localSourceDir;
+
+    private final Map<String, GithubTreeIndex> treeIndexByBranch = new HashMap<>();
+
+    private final Map<String, GithubTreeIndex> treeIndexBySha = new HashMap<>();
+
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    public void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    public Path getLocalSourceDir() {
+        return localSourceDir;
+    }
+
+    /**
+     * @param localSourceDir
+     *         When set, tree queries are answered from the listing of this local u8g2 checkout instead of the Github API
+     */
+    public synchronized void setLocalSourceDir(Path localSourceDir) {
+        this.localSourceDir = localSourceDir;
+        treeIndexByBranch.clear();
+    }
+
     public List<GithubTreeNode> getNodesFromTree(String path, String branch) throws IOException {
+        return getTreeIndex(branch).findByPrefix(path);
+    }
+
+    /**
+     * Retrieve the index of the recursive tree of the specified branch. The tree is only fetched once per branch and
+     * branches resolving to the same tree share a single index.
+     *
+     * @param branch
+     *         The name of the branch
+     *
+     * @return The {@link GithubTreeIndex} of the branch
+     *
+     * @throws IOException
+     *         When the tree could not be retrieved
+     */
+    public synchronized GithubTreeIndex getTreeIndex(String branch) throws IOException {
+        var treeIndex = treeIndexByBranch.get(branch);
+        if (treeIndex != null)
+            return treeIndex;
+        if (localSourceDir != null) {
+            log.info("Using directory listing of '{}' in place of the tree of branch '{}'", localSourceDir, branch);
+            treeIndex = GithubTreeIndex.fromDirectory(localSourceDir);
+            treeIndexByBranch.put(branch, treeIndex);
+            return treeIndex;
+        }
         try {
             HttpRequest request = buildGetRequest(String.format("https://api.github.com/repos/%s/u8g2/git/trees/%s?recursive=1", REPO_OWNER, branch));
             String response = sendAndGetString(request);
             GithubTree tree = gson.fromJson(response, GithubTree.class);
-            return tree.getTreeNodes().stream().filter(p -> p.getPath().startsWith(path)).collect(Collectors.toList());
+            if (tree == null || tree.getSha() == null)
+                throw new IOException("Unable to retrieve tree of branch: " + branch);
+            if (Boolean.TRUE.equals(tree.getTruncated()))
+                log.warn("Tree of branch '{}' has been truncated by the server", branch);
+            treeIndex = treeIndexBySha.computeIfAbsent(tree.getSha(), sha -> new GithubTreeIndex(tree));
+            treeIndexByBranch.put(branch, treeIndex);
+            log.debug("Indexed {} nodes of tree {} (branch: {})", treeIndex.size(), treeIndex.getSha(), branch);
+            return treeIndex;
         } catch (URISyntaxException e) {
             throw new IOException("Unable to extract contents from tree", e);
         }
     }
 
+    /**
+     * Resolve the branch to the SHA of its latest commit. When a local source directory is set, the SHA is read from its git metadata.
+     *
+     * @param branch
+     *         The name of the branch
+     *
+     * @return The commit SHA or {@code null} if it could not be determined from the local source directory
+     *
+     * @throws IOException
+     *         When the SHA could not be retrieved from the Github API
+     */
+    public String getCommitSha(String branch) throws IOException {
+        if (localSourceDir != null)
+            return getLocalCommitSha(localSourceDir.resolve(".git"));
+        try {
+            HttpRequest request = HttpRequest.newBuilder(new URI(String.format("https://api.github.com/repos/%s/u8g2/commits/%s", REPO_OWNER, branch)))
+                    .header("Accept", "application/vnd.github.sha")
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200)
+                throw new IOException(String.format("Unable to resolve commit of branch '%s' (Status: %d)", branch, response.statusCode()));
+            return response.body().trim();
+        } catch (URISyntaxException e) {
+            throw new IOException("Unable to resolve commit of branch: " + branch, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving commit of branch: " + branch, e);
+        }
+    }
+
+    private String getLocalCommitSha(Path gitDir) throws IOException {
+        Path headFile = gitDir.resolve("HEAD");
+        if (!Files.isRegularFile(headFile))
+            return null;
+        String head = Files.readString(headFile).trim();
+        if (!head.startsWith("ref:"))
+            return head;
+        String ref = head.substring(4).trim();
+        Path refFile = gitDir.resolve(ref);
+        if (Files.isRegularFile(refFile))
+            return Files.readString(refFile).trim();
+        Path packedRefs = gitDir.resolve("packed-refs");
+        if (Files.isRegularFile(packedRefs)) {
+            for (String line : Files.readAllLines(packedRefs)) {
+                String[] tokens = line.split(" ");
+                if (tokens.length == 2 && tokens[1].equals(ref))
+                    return tokens[0];
+            }
+        }
+        return null;
+    }
+
     public List<GithubFile> getPathContents(String path, String branch) throws IOException {
         try {
             HttpRequest request = buildGetRequest("https://api.github.com/repos/%s/u8g2/contents/%s?ref=%s", REPO_OWNER, path, branch);
@@ -53,6 +170,8 @@ public class GithubService {
     }
 
     private String sendAndGetString(HttpRequest request) throws IOException {
+        if (httpCache != null)
+            return httpCache.getString(request.uri());
         try {
             HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
             return response.body();
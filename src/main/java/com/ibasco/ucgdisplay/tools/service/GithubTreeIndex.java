@@ -0,0 +1,109 @@
+package com.ibasco.ucgdisplay.tools.service;
+
+import com.ibasco.ucgdisplay.tools.beans.GithubTree;
+import com.ibasco.ucgdisplay.tools.beans.GithubTreeNode;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable index of the nodes of a recursive git tree, sorted by path. Supports prefix queries in O(log n + k).
+ *
+ * @author Rafael Ibasco
+ */
+public class GithubTreeIndex {
+
+    private final String sha;
+
+    private final GithubTreeNode[] nodes;
+
+    private final String[] paths;
+
+    public GithubTreeIndex(GithubTree tree) {
+        this.sha = tree.getSha();
+        this.nodes = tree.getTreeNodes().stream()
+                .filter(node -> node.getPath() != null)
+                .sorted(Comparator.comparing(GithubTreeNode::getPath))
+                .toArray(GithubTreeNode[]::new);
+        this.paths = Arrays.stream(nodes).map(GithubTreeNode::getPath).toArray(String[]::new);
+    }
+
+    /**
+     * Build an index from the contents of a local directory (e.g. a local checkout of the repository). Hidden directories such as {@code .git} are skipped.
+     *
+     * @param root
+     *         The root directory
+     *
+     * @return The {@link GithubTreeIndex} with the paths relative to the root directory
+     *
+     * @throws IOException
+     *         When the directory could not be traversed
+     */
+    public static GithubTreeIndex fromDirectory(Path root) throws IOException {
+        GithubTree tree = new GithubTree();
+        tree.setSha("local:" + root.toAbsolutePath());
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.equals(root))
+                    return FileVisitResult.CONTINUE;
+                if (dir.getFileName().toString().startsWith("."))
+                    return FileVisitResult.SKIP_SUBTREE;
+                tree.getTreeNodes().add(createNode(dir, "tree", null));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                tree.getTreeNodes().add(createNode(file, "blob", (int) attrs.size()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            private GithubTreeNode createNode(Path path, String type, Integer size) {
+                var node = new GithubTreeNode();
+                node.setPath(root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/"));
+                node.setType(type);
+                node.setSize(size);
+                return node;
+            }
+        });
+        return new GithubTreeIndex(tree);
+    }
+
+    /**
+     * @return The SHA of the indexed tree
+     */
+    public String getSha() {
+        return sha;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Find all nodes whose path starts with the specified prefix
+     *
+     * @param prefix
+     *         The path prefix (e.g. {@code csrc/})
+     *
+     * @return The matching nodes sorted by path
+     */
+    public List<GithubTreeNode> findByPrefix(String prefix) {
+        int index = Arrays.binarySearch(paths, prefix);
+        //If not found, binarySearch returns (-(insertion point) - 1)
+        int start = index >= 0 ? index : -(index + 1);
+        List<GithubTreeNode> result = new ArrayList<>();
+        for (int i = start; i < paths.length && paths[i].startsWith(prefix); i++)
+            result.add(nodes[i]);
+        return result;
+    }
+}
@@ -0,0 +1,427 @@
+package com.ibasco.ucgdisplay.tools.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A persistent, content-addressed disk cache for HTTP GET requests.
+ * <p>
+ * Response bodies are stored under {@code objects/<sha-256>} and an index maps each url to its validators (ETag/Last-Modified).
+ * Cached entries are revalidated using conditional requests and the least recently used entries are evicted once the cache exceeds its maximum size.
+ * Objects no longer referenced by the index (e.g. the previous contents of an url) are deleted on {@link #close()}, since their paths may still be
+ * in use by the callers they were returned to.
+ * </p>
+ * <p>
+ * Access times of cache hits are only kept in memory and written to the index on {@link #close()}, after waiting for the revalidations
+ * running in the background.
+ * </p>
+ *
+ * @author Rafael Ibasco
+ */
+public class HttpCache implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpCache.class);
+
+    private static final String INDEX_FILE = "index.json";
+
+    private static final String OBJECTS_DIR = "objects";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    public static final long DEFAULT_MAX_SIZE = 512L * 1024 * 1024;
+
+    private static final Duration REVALIDATE_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private final ExecutorService revalidateExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "http-cache-revalidate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path cacheDir;
+
+    private final Path objectsDir;
+
+    private final Path indexFile;
+
+    private final long maxSize;
+
+    private Duration staleTimeout;
+
+    private final Map<String, CacheEntry> index;
+
+    private boolean indexModified;
+
+    private final Set<String> supersededObjects = new HashSet<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong downloadedBytes = new AtomicLong();
+
+    private static class CacheEntry {
+
+        private String etag;
+
+        private String lastModified;
+
+        private String hash;
+
+        private long size;
+
+        private long lastAccess;
+    }
+
+    public HttpCache(Path cacheDir) throws IOException {
+        this(cacheDir, DEFAULT_MAX_SIZE);
+    }
+
+    public HttpCache(Path cacheDir, long maxSize) throws IOException {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Maximum cache size must be greater than zero");
+        this.cacheDir = cacheDir;
+        this.objectsDir = cacheDir.resolve(OBJECTS_DIR);
+        this.indexFile = cacheDir.resolve(INDEX_FILE);
+        this.maxSize = maxSize;
+        Files.createDirectories(objectsDir);
+        deleteTempFiles();
+        this.index = loadIndex();
+        deleteUnreferencedObjects();
+        log.info("[HTTP-CACHE] Using cache directory '{}' (Entries: {}, Max Size: {} bytes)", cacheDir, index.size(), maxSize);
+    }
+
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    public Duration getStaleTimeout() {
+        return staleTimeout;
+    }
+
+    /**
+     * Enables stale-while-revalidate. If a cached copy exists and the revalidation request does not complete within the specified timeout,
+     * the cached copy is returned and the revalidation continues in the background.
+     *
+     * @param staleTimeout
+     *         The maximum time to wait for revalidation or {@code null} to always wait for the response
+     */
+    public void setStaleTimeout(Duration staleTimeout) {
+        this.staleTimeout = staleTimeout;
+    }
+
+    /**
+     * @return The number of requests served from a cached copy (not modified, stale or unreachable)
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return The number of requests that required the response body to be downloaded
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return The total number of response body bytes downloaded by this cache
+     */
+    public long getDownloadedBytes() {
+        return downloadedBytes.get();
+    }
+
+    public String getString(URI uri) throws IOException {
+        return Files.readString(get(uri));
+    }
+
+    public InputStream getInputStream(URI uri) throws IOException {
+        return Files.newInputStream(get(uri));
+    }
+
+    /**
+     * Retrieve the contents of the specified url, revalidating the cached copy if one exists
+     *
+     * @param uri
+     *         The url to fetch
+     *
+     * @return The path of the cached response body
+     *
+     * @throws IOException
+     *         When the contents could not be fetched and no cached copy is available
+     */
+    public Path get(URI uri) throws IOException {
+        String key = uri.toString();
+        CacheEntry entry = getValidEntry(key);
+
+        if (entry == null || staleTimeout == null)
+            return fetch(uri, entry);
+
+        Future<Path> future = revalidateExecutor.submit(() -> fetch(uri, entry));
+        try {
+            return future.get(staleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("[HTTP-CACHE] Revalidation of '{}' did not complete within {} ms. Using cached copy", key, staleTimeout.toMillis());
+            hitCount.incrementAndGet();
+            touch(key);
+            return objectPath(entry.hash);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + key, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Unable to fetch " + key, e.getCause());
+        }
+    }
+
+    private Path fetch(URI uri, CacheEntry entry) throws IOException {
+        String key = uri.toString();
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder().uri(uri).GET();
+        if (entry != null) {
+            if (entry.etag != null)
+                requestBuilder.header("If-None-Match", entry.etag);
+            if (entry.lastModified != null)
+                requestBuilder.header("If-Modified-Since", entry.lastModified);
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            if (entry == null)
+                throw e;
+            log.warn("[HTTP-CACHE] Request for '{}' failed ({}). Using cached copy", key, e.getMessage());
+            hitCount.incrementAndGet();
+            touch(key);
+            return objectPath(entry.hash);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + key, e);
+        }
+
+        try (InputStream body = response.body()) {
+            int status = response.statusCode();
+            if (status == 304 && entry != null) {
+                log.info("[HTTP-CACHE] Not modified: {}", key);
+                hitCount.incrementAndGet();
+                touch(key);
+                return objectPath(entry.hash);
+            } else if (status != 200) {
+                if (entry == null)
+                    throw new IOException(String.format("Unexpected response status %d for '%s'", status, key));
+                log.warn("[HTTP-CACHE] Unexpected response status {} for '{}'. Using cached copy", status, key);
+                hitCount.incrementAndGet();
+                touch(key);
+                return objectPath(entry.hash);
+            }
+            CacheEntry newEntry = new CacheEntry();
+            newEntry.etag = response.headers().firstValue("ETag").orElse(null);
+            newEntry.lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            Path object = store(body, newEntry);
+            missCount.incrementAndGet();
+            downloadedBytes.addAndGet(newEntry.size);
+            log.info("[HTTP-CACHE] Downloaded '{}' (Bytes: {})", key, newEntry.size);
+            put(key, newEntry);
+            return object;
+        }
+    }
+
+    private Path store(InputStream body, CacheEntry entry) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        Path tempFile = Files.createTempFile(cacheDir, "download-", TEMP_SUFFIX);
+        try {
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+                entry.size = body.transferTo(out);
+            }
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest())
+                hash.append(String.format("%02x", b));
+            entry.hash = hash.toString();
+            Path object = objectPath(entry.hash);
+            if (Files.exists(object)) {
+                Files.delete(tempFile);
+            } else {
+                Files.move(tempFile, object, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return object;
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    private synchronized CacheEntry getValidEntry(String key) {
+        CacheEntry entry = index.get(key);
+        if (entry != null && !Files.isRegularFile(objectPath(entry.hash))) {
+            log.warn("[HTTP-CACHE] Missing cached object for '{}'. Discarding entry", key);
+            index.remove(key);
+            indexModified = true;
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void touch(String key) {
+        CacheEntry entry = index.get(key);
+        if (entry != null) {
+            entry.lastAccess = System.currentTimeMillis();
+            indexModified = true;
+        }
+    }
+
+    private synchronized void put(String key, CacheEntry entry) throws IOException {
+        entry.lastAccess = System.currentTimeMillis();
+        CacheEntry previous = index.put(key, entry);
+        if (previous != null && !previous.hash.equals(entry.hash))
+            supersededObjects.add(previous.hash);
+        evict();
+        saveIndex();
+    }
+
+    /**
+     * Wait for the revalidations running in the background, delete the objects which are no longer referenced and write the access times of
+     * the cache hits to the index
+     */
+    @Override
+    public void close() throws IOException {
+        //Not synchronized, the pending revalidations need the lock to update the index
+        revalidateExecutor.shutdown();
+        try {
+            if (!revalidateExecutor.awaitTermination(REVALIDATE_SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("[HTTP-CACHE] Revalidation did not complete within {} ms. Cancelling", REVALIDATE_SHUTDOWN_TIMEOUT.toMillis());
+                revalidateExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            revalidateExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (String hash : supersededObjects)
+                deleteIfUnreferenced(hash);
+            supersededObjects.clear();
+            if (indexModified)
+                saveIndex();
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the total size of the referenced objects fits within the maximum size. The objects of the
+     * removed entries are deleted on {@link #close()}.
+     */
+    private void evict() {
+        List<Map.Entry<String, CacheEntry>> entries = new ArrayList<>(index.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        Map<String, Long> objectSizes = new HashMap<>();
+        for (var e : entries)
+            objectSizes.put(e.getValue().hash, e.getValue().size);
+        long totalSize = objectSizes.values().stream().mapToLong(Long::longValue).sum();
+
+        //Always keep the most recently used entry, even if it exceeds the limit on its own
+        for (int i = 0; i < entries.size() - 1 && totalSize > maxSize; i++) {
+            var e = entries.get(i);
+            index.remove(e.getKey());
+            if (!isReferenced(e.getValue().hash)) {
+                supersededObjects.add(e.getValue().hash);
+                totalSize -= e.getValue().size;
+            }
+            log.info("[HTTP-CACHE] Evicted '{}'", e.getKey());
+        }
+    }
+
+    private boolean isReferenced(String hash) {
+        return index.values().stream().anyMatch(p -> p.hash.equals(hash));
+    }
+
+    /**
+     * Delete the object if no entry of the index refers to it anymore
+     */
+    private void deleteIfUnreferenced(String hash) {
+        if (isReferenced(hash))
+            return;
+        try {
+            Files.deleteIfExists(objectPath(hash));
+        } catch (IOException ex) {
+            log.warn("[HTTP-CACHE] Unable to delete cached object: {}", hash, ex);
+        }
+    }
+
+    /**
+     * Remove the objects the index does not refer to, e.g. left behind by a run which was interrupted before updating the index
+     */
+    private void deleteUnreferencedObjects() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        for (CacheEntry entry : index.values())
+            referenced.add(entry.hash);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(objectsDir)) {
+            for (Path object : stream) {
+                if (referenced.contains(object.getFileName().toString()))
+                    continue;
+                log.info("[HTTP-CACHE] Removing unreferenced object '{}'", object.getFileName());
+                Files.deleteIfExists(object);
+            }
+        }
+    }
+
+    private Path objectPath(String hash) {
+        return objectsDir.resolve(hash);
+    }
+
+    private Map<String, CacheEntry> loadIndex() {
+        if (!Files.isRegularFile(indexFile))
+            return new HashMap<>();
+        try {
+            Type type = new TypeToken<HashMap<String, CacheEntry>>() {
+            }.getType();
+            Map<String, CacheEntry> entries = gson.fromJson(Files.readString(indexFile), type);
+            return entries != null ? entries : new HashMap<>();
+        } catch (Exception e) {
+            log.warn("[HTTP-CACHE] Unable to read cache index '{}'. Starting with an empty cache", indexFile, e);
+            return new HashMap<>();
+        }
+    }
+
+    private void saveIndex() throws IOException {
+        Path tempFile = Files.createTempFile(cacheDir, "index-", TEMP_SUFFIX);
+        Files.writeString(tempFile, gson.toJson(index));
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexModified = false;
+    }
+
+    private void deleteTempFiles() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*" + TEMP_SUFFIX)) {
+            for (Path file : stream)
+                Files.deleteIfExists(file);
+        }
+    }
+}
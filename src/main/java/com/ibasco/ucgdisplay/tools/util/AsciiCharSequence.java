@@ -0,0 +1,76 @@
+package com.ibasco.ucgdisplay.tools.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A read-only {@link CharSequence} view over a region of an ASCII encoded buffer. No copies are made until {@link #toString()} is called.
+ *
+ * @author Rafael Ibasco
+ */
+public final class AsciiCharSequence implements CharSequence {
+
+    private final ByteBuffer data;
+
+    private final int offset;
+
+    private final int length;
+
+    public AsciiCharSequence(byte[] data, int offset, int length) {
+        this(ByteBuffer.wrap(data), offset, length);
+    }
+
+    public AsciiCharSequence(ByteBuffer data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > data.limit())
+            throw new IndexOutOfBoundsException(String.format("Invalid region (offset: %d, length: %d, size: %d)", offset, length, data.limit()));
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Check if the specified region only contains 7-bit ASCII characters
+     *
+     * @param data
+     *         The source buffer
+     * @param start
+     *         The start offset (inclusive)
+     * @param end
+     *         The end offset (exclusive)
+     *
+     * @return {@code true} if the region can be represented by this class without decoding
+     */
+    public static boolean isAscii(ByteBuffer data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data.get(i) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        return (char) (data.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException(String.format("start: %d, end: %d, length: %d", start, end, length));
+        return new AsciiCharSequence(data, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        data.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
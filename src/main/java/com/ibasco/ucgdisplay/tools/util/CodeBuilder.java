@@ -1,17 +1,126 @@
 package com.ibasco.ucgdisplay.tools.util;
 
-public class CodeBuilder {
-
-    private final StringBuilder builder = new StringBuilder();
-
-    private final String lineSeparator = System.lineSeparator();
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds source code line by line. The code is either kept in memory (see {@link #toString()}) or written through to an {@link Appendable}
+ * (e.g. a {@link Writer} opened with {@link #open(Path)}), in which case the memory used stays the same regardless of the amount of code generated.
+ * <p>
+ * Codes without arguments are appended as-is, {@link String#format(String, Object...)} is only used when arguments are present.
+ * Lines which are repeated many times with different values should use a pre-compiled {@link Template}.
+ * </p>
+ *
+ * @author Rafael Ibasco
+ */
+public class CodeBuilder implements Closeable, Flushable {
+
+    private final Appendable out;
 
     private boolean useUnixStyleSeparator;
 
     private static final String TAB = "    ";
 
+    /**
+     * A code template with {@code %s} placeholders which are substituted by plain string concatenation. {@code %%} produces a single '%'.
+     * Other conversions are not supported.
+     */
+    public static final class Template {
+
+        private final String[] parts;
+
+        private Template(String[] parts) {
+            this.parts = parts;
+        }
+
+        public static Template compile(String template) {
+            List<String> parts = new ArrayList<>();
+            StringBuilder part = new StringBuilder();
+            for (int i = 0; i < template.length(); i++) {
+                char c = template.charAt(i);
+                if (c != '%') {
+                    part.append(c);
+                    continue;
+                }
+                char next = (i + 1 < template.length()) ? template.charAt(i + 1) : 0;
+                if (next == '%') {
+                    part.append('%');
+                } else if (next == 's') {
+                    parts.add(part.toString());
+                    part.setLength(0);
+                } else {
+                    throw new IllegalArgumentException(String.format("Unsupported conversion '%%%s' at index %d of template '%s'", (next == 0) ? "" : next, i, template));
+                }
+                i++;
+            }
+            parts.add(part.toString());
+            return new Template(parts.toArray(new String[0]));
+        }
+
+        /**
+         * @return The number of placeholders
+         */
+        public int getArgumentCount() {
+            return parts.length - 1;
+        }
+
+        private void appendTo(Appendable out, String... args) throws IOException {
+            if (args.length != getArgumentCount())
+                throw new IllegalArgumentException(String.format("Template expects %d argument(s) but %d were provided", getArgumentCount(), args.length));
+            out.append(parts[0]);
+            for (int i = 0; i < args.length; i++) {
+                out.append(args[i]);
+                out.append(parts[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Creates a code builder backed by an in-memory buffer
+     */
+    public CodeBuilder() {
+        this(new StringBuilder());
+    }
+
+    /**
+     * Creates a code builder writing through to the specified output. The output is not buffered by this class.
+     *
+     * @param out
+     *         The output receiving the code
+     */
+    public CodeBuilder(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates a code builder writing to a file (UTF-8) through a buffered writer. The builder must be closed once the code has been generated.
+     *
+     * @param file
+     *         The output file. An existing file is overwritten.
+     *
+     * @return The {@link CodeBuilder} writing to the file
+     *
+     * @throws IOException
+     *         When the file could not be opened
+     */
+    public static CodeBuilder open(Path file) throws IOException {
+        return new CodeBuilder(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
     public CodeBuilder append(String code, Object... args) {
-        builder.append(String.format(code, args));
+        return write((args.length == 0) ? code : String.format(code, args));
+    }
+
+    public CodeBuilder append(Template template, String... args) {
+        try {
+            template.appendTo(out, args);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return this;
     }
 
@@ -21,7 +130,7 @@ public class CodeBuilder {
     }
 
     public CodeBuilder appendMultiLine(String code, int lineCount, Object... args) {
-        builder.append(code);
+        append(code, args);
         appendLine(lineCount);
         return this;
     }
@@ -42,21 +151,28 @@ public class CodeBuilder {
         return this;
     }
 
+    public CodeBuilder appendTabbedLine(Template template, String... args) {
+        appendTab(1);
+        append(template, args);
+        appendLine();
+        return this;
+    }
+
     public CodeBuilder appendTab() {
         appendTab(1);
         return this;
     }
 
     public CodeBuilder appendTab(int count) {
-        builder.append(TAB.repeat(Math.max(0, count)));
+        for (int i = 0; i < count; i++)
+            write(TAB);
         return this;
     }
 
     public CodeBuilder appendLine(int lineCount) {
-        if (isUseUnixStyleSeparator())
-            builder.append("\n".repeat(Math.max(0, lineCount)));
-        else
-            builder.append(System.lineSeparator().repeat(Math.max(0, lineCount)));
+        String separator = isUseUnixStyleSeparator() ? "\n" : System.lineSeparator();
+        for (int i = 0; i < lineCount; i++)
+            write(separator);
         return this;
     }
 
@@ -72,8 +188,32 @@ public class CodeBuilder {
         this.useUnixStyleSeparator = useUnixStyleSeparator;
     }
 
+    @Override
+    public void flush() throws IOException {
+        if (out instanceof Flushable)
+            ((Flushable) out).flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out instanceof Closeable)
+            ((Closeable) out).close();
+    }
+
+    /**
+     * @return The generated code if the builder is backed by an in-memory buffer (or the string representation of the output otherwise)
+     */
     @Override
     public String toString() {
-        return builder.toString();
+        return out.toString();
+    }
+
+    private CodeBuilder write(String code) {
+        try {
+            out.append(code);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
     }
 }
@@ -0,0 +1,461 @@
+package com.ibasco.ucgdisplay.tools.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A single-pass tokenizer for C aggregate initializers (e.g. the {@code controller_list} of codebuild.c). Whitespace, comments and preprocessor
+ * directives are skipped. Any other punctuation is reported as a {@link TokenType#SYMBOL}. String literals are returned verbatim (without the enclosing quotes, escape sequences are not translated).
+ * <p>
+ * The lexer does not allocate per token, the text of the current token is only materialized on request via {@link #text()}. When reading from a {@link Reader},
+ * only a small window of the input around the current token is kept in memory.
+ *
+ * @author Rafael Ibasco
+ */
+public final class CodeLexer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int EOF = -1;
+
+    public enum TokenType {
+        LEFT_BRACE("'{'"),
+        RIGHT_BRACE("'}'"),
+        LEFT_BRACKET("'['"),
+        RIGHT_BRACKET("']'"),
+        COMMA("','"),
+        PIPE("'|'"),
+        ASSIGN("'='"),
+        SEMICOLON("';'"),
+        STRING("string literal"),
+        CHARACTER("character literal"),
+        IDENTIFIER("identifier"),
+        INTEGER("integer"),
+        SYMBOL("symbol"),
+        EOF("end of input");
+
+        private final String description;
+
+        TokenType(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final CharSequence code;
+
+    /**
+     * The end of the region of {@link #code} being tokenized
+     */
+    private final int limit;
+
+    private final Reader reader;
+
+    /**
+     * Sliding window over the reader. buffer[0] is located at the absolute offset bufferStart.
+     */
+    private char[] buffer;
+
+    private int bufferStart;
+
+    private int bufferLength;
+
+    private boolean endOfStream;
+
+    private int pos;
+
+    private int line = 1;
+
+    private int lineStart;
+
+    private boolean atLineStart = true;
+
+    private TokenType type;
+
+    private int tokenStart;
+
+    private int tokenEnd;
+
+    private int tokenLine;
+
+    private int tokenColumn;
+
+    public CodeLexer(CharSequence code) {
+        this.code = code;
+        this.limit = code.length();
+        this.reader = null;
+        advance();
+    }
+
+    /**
+     * Creates a lexer over a region of the code. Line and column numbers remain relative to the start of the code.
+     */
+    private CodeLexer(CharSequence code, int start, int end, int line, int lineStart) {
+        this.code = code;
+        this.limit = end;
+        this.reader = null;
+        this.pos = start;
+        this.line = line;
+        this.lineStart = lineStart;
+        this.atLineStart = false;
+        advance();
+    }
+
+    /**
+     * Creates a lexer that pulls its input from a reader on demand. The reader is not closed by the lexer.
+     *
+     * @param reader
+     *         The source of the C code
+     */
+    public CodeLexer(Reader reader) {
+        this.code = null;
+        this.limit = 0;
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        advance();
+    }
+
+    /**
+     * @return The type of the current token
+     */
+    public TokenType peek() {
+        return type;
+    }
+
+    /**
+     * @return The text of the current token (for string and character literals, the contents between the quotes)
+     */
+    public String text() {
+        if (reader == null)
+            return code.subSequence(tokenStart, tokenEnd).toString();
+        return new String(buffer, tokenStart - bufferStart, tokenEnd - tokenStart);
+    }
+
+    /**
+     * @return The 1-based line number of the current token
+     */
+    public int line() {
+        return tokenLine;
+    }
+
+    /**
+     * @return The 1-based column of the current token
+     */
+    public int column() {
+        return tokenColumn;
+    }
+
+    /**
+     * Checks the type of the current token and advances to the next one
+     *
+     * @param expected
+     *         The expected token type
+     *
+     * @return The text of the consumed token
+     *
+     * @throws IllegalStateException
+     *         If the current token is not of the expected type
+     */
+    public String expect(TokenType expected) {
+        if (type != expected)
+            throw error("Expected " + expected.getDescription() + " but found " + describe());
+        String text = text();
+        advance();
+        return text;
+    }
+
+    /**
+     * Consumes the current token if it matches the specified type
+     *
+     * @return {@code true} if the token was consumed
+     */
+    public boolean accept(TokenType expected) {
+        if (type != expected)
+            return false;
+        advance();
+        return true;
+    }
+
+    /**
+     * Consumes the current integer token
+     *
+     * @return The integer value of the token (decimal, hexadecimal or octal)
+     */
+    public int expectInteger() {
+        int line = tokenLine, column = tokenColumn;
+        String text = expect(TokenType.INTEGER);
+        try {
+            return Integer.decode(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(String.format("Invalid integer '%s' (line %d, column %d)", text, line, column), e);
+        }
+    }
+
+    /**
+     * Consumes a brace-enclosed block starting at the current '{' token and splits it at the boundaries of its top-level nested blocks
+     * (e.g. the entries of an array initializer) using a brace-depth scan. Only available when tokenizing a {@link CharSequence}.
+     *
+     * @return One lexer per nested block, each positioned on the opening '{' of its block
+     */
+    public List<CodeLexer> splitBlock() {
+        if (reader != null)
+            throw new UnsupportedOperationException("Splitting is not supported when reading from a stream");
+        if (type != TokenType.LEFT_BRACE)
+            throw error("Expected " + TokenType.LEFT_BRACE.getDescription() + " but found " + describe());
+        List<CodeLexer> blocks = new ArrayList<>();
+        int depth = 1;
+        int blockStart = 0, blockLine = 0, blockLineStart = 0;
+        int c;
+        while ((c = charAt(pos)) != EOF) {
+            int next = charAt(pos + 1);
+            if (c == '"' || c == '\'') {
+                pos = skipLiteral(pos);
+                continue;
+            } else if (c == '/' && next == '*') {
+                consume(skipBlockComment());
+                continue;
+            } else if (c == '/' && next == '/') {
+                pos = endOfLine(pos);
+                continue;
+            } else if (c == '{') {
+                if (++depth == 2) {
+                    blockStart = pos;
+                    blockLine = line;
+                    blockLineStart = lineStart;
+                }
+            } else if (c == '}') {
+                if (--depth == 0) {
+                    pos++;
+                    advance();
+                    return blocks;
+                }
+                if (depth == 1)
+                    blocks.add(new CodeLexer(code, blockStart, pos + 1, blockLine, blockLineStart));
+            }
+            if (c == '\n')
+                newLine(pos + 1);
+            pos++;
+        }
+        throw error("Unterminated block");
+    }
+
+    /**
+     * Moves to the next token
+     */
+    public void advance() {
+        tokenStart = pos;
+        skipWhitespaceAndComments();
+        tokenLine = line;
+        tokenColumn = pos - lineStart + 1;
+        tokenStart = pos;
+        int c = charAt(pos);
+        if (c == EOF) {
+            type = TokenType.EOF;
+            tokenEnd = pos;
+            return;
+        }
+        atLineStart = false;
+        switch (c) {
+            case '{' -> single(TokenType.LEFT_BRACE);
+            case '}' -> single(TokenType.RIGHT_BRACE);
+            case '[' -> single(TokenType.LEFT_BRACKET);
+            case ']' -> single(TokenType.RIGHT_BRACKET);
+            case ',' -> single(TokenType.COMMA);
+            case '|' -> single(TokenType.PIPE);
+            case '=' -> single(TokenType.ASSIGN);
+            case ';' -> single(TokenType.SEMICOLON);
+            case '"' -> readLiteral(TokenType.STRING);
+            case '\'' -> readLiteral(TokenType.CHARACTER);
+            default -> {
+                if (isIdentifierStart(c)) {
+                    while (isIdentifierPart(charAt(++pos))) ;
+                    type = TokenType.IDENTIFIER;
+                    tokenEnd = pos;
+                } else if (c >= '0' && c <= '9') {
+                    while (isIdentifierPart(charAt(++pos))) ;
+                    type = TokenType.INTEGER;
+                    tokenEnd = pos;
+                } else {
+                    single(TokenType.SYMBOL);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an exception describing an error at the position of the current token
+     */
+    public IllegalStateException error(String message) {
+        return new IllegalStateException(String.format("%s (line %d, column %d)", message, tokenLine, tokenColumn));
+    }
+
+    private String describe() {
+        return switch (type) {
+            case EOF -> type.getDescription();
+            case STRING -> type.getDescription() + " \"" + text() + "\"";
+            default -> type.getDescription() + " '" + text() + "'";
+        };
+    }
+
+    private void single(TokenType tokenType) {
+        type = tokenType;
+        tokenEnd = ++pos;
+    }
+
+    private void readLiteral(TokenType tokenType) {
+        int end = skipLiteral(pos);
+        type = tokenType;
+        tokenStart = pos + 1;
+        tokenEnd = end - 1;
+        pos = end;
+    }
+
+    /**
+     * @return The position after the closing quote of the string or character literal starting at the specified position
+     */
+    private int skipLiteral(int start) {
+        int quote = charAt(start);
+        int i = start + 1;
+        int c;
+        while ((c = charAt(i)) != EOF && c != '\n') {
+            if (c == quote)
+                return i + 1;
+            i += (c == '\\') ? 2 : 1;
+        }
+        throw error(quote == '"' ? "Unterminated string literal" : "Unterminated character literal");
+    }
+
+    private void skipWhitespaceAndComments() {
+        int c;
+        while ((c = charAt(pos)) != EOF) {
+            int next = charAt(pos + 1);
+            if (c == '\n') {
+                newLine(++pos);
+            } else if (c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+                pos++;
+            } else if (c == '/' && next == '/') {
+                pos = endOfLine(pos);
+            } else if (c == '/' && next == '*') {
+                consume(skipBlockComment());
+                atLineStart = false;
+            } else if (c == '#' && atLineStart) {
+                skipDirective();
+            } else {
+                return;
+            }
+            //Allow the window to slide past the skipped input
+            tokenStart = pos;
+        }
+    }
+
+    /**
+     * @return The position after the end of the block comment starting at the current position
+     */
+    private int skipBlockComment() {
+        int i = pos + 2;
+        int c;
+        while ((c = charAt(i)) != EOF) {
+            if (c == '*' && charAt(i + 1) == '/')
+                return i + 2;
+            i++;
+        }
+        throw new IllegalStateException(String.format("Unterminated comment (line %d, column %d)", line, pos - lineStart + 1));
+    }
+
+    /**
+     * Skips a preprocessor directive including its continuation lines
+     */
+    private void skipDirective() {
+        int c;
+        while ((c = charAt(pos)) != EOF && c != '\n') {
+            if (c == '\\' && charAt(pos + 1) == '\n') {
+                newLine(pos += 2);
+                continue;
+            }
+            if (c == '\\' && charAt(pos + 1) == '\r' && charAt(pos + 2) == '\n') {
+                newLine(pos += 3);
+                continue;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Moves the position to the specified offset, keeping track of the line-breaks in between
+     */
+    private void consume(int end) {
+        while (pos < end) {
+            if (charAt(pos++) == '\n')
+                newLine(pos);
+        }
+    }
+
+    private int endOfLine(int from) {
+        int c;
+        while ((c = charAt(from)) != EOF && c != '\n')
+            from++;
+        return from;
+    }
+
+    private void newLine(int start) {
+        line++;
+        lineStart = start;
+        atLineStart = true;
+    }
+
+    /**
+     * @return The character at the specified absolute offset or {@link #EOF} if the offset is past the end of the input
+     */
+    private int charAt(int index) {
+        if (reader == null)
+            return index < limit ? code.charAt(index) : EOF;
+        if (index - bufferStart >= bufferLength && !fill(index))
+            return EOF;
+        return buffer[index - bufferStart];
+    }
+
+    /**
+     * Reads more input until the specified absolute offset is available. Characters before the start of the current token are discarded.
+     *
+     * @return {@code false} if the end of the stream has been reached before the offset
+     */
+    private boolean fill(int index) {
+        try {
+            while (index - bufferStart >= bufferLength) {
+                if (endOfStream)
+                    return false;
+                int discard = tokenStart - bufferStart;
+                if (discard > 0 && bufferLength == buffer.length) {
+                    System.arraycopy(buffer, discard, buffer, 0, bufferLength - discard);
+                    bufferLength -= discard;
+                    bufferStart += discard;
+                } else if (bufferLength == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int read = reader.read(buffer, bufferLength, buffer.length - bufferLength);
+                if (read < 0)
+                    endOfStream = true;
+                else
+                    bufferLength += read;
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+}
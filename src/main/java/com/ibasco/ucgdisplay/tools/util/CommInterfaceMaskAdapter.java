@@ -0,0 +1,61 @@
+package com.ibasco.ucgdisplay.tools.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.ibasco.ucgdisplay.tools.beans.GlcdCommInfo;
+
+import java.io.IOException;
+
+/**
+ * Gson adapter for a bitmask of {@link GlcdCommInfo} flags. The mask is written as the list of flags the existing manifests contain
+ * (<code>[ { "name": "COM_4WSPI", "value": 1 }, ... ]</code>). A plain number is accepted when reading.
+ *
+ * @author Rafael Ibasco
+ */
+public class CommInterfaceMaskAdapter extends TypeAdapter<Integer> {
+
+    @Override
+    public void write(JsonWriter out, Integer value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (GlcdCommInfo info : GlcdCommInfo.fromMask(value))
+            out.beginObject().name("name").value(info.name()).name("value").value(info.getValue()).endObject();
+        out.endArray();
+    }
+
+    @Override
+    public Integer read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        } else if (token == JsonToken.NUMBER) {
+            return in.nextInt();
+        }
+        int mask = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            String name = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("name".equals(in.nextName())) {
+                    name = in.nextString();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            //The value is derived from the name, older manifests contain -1 for unknown interfaces
+            GlcdCommInfo info = (name != null) ? GlcdCommInfo.fromName(name) : null;
+            if (info != null)
+                mask |= info.getValue();
+        }
+        in.endArray();
+        return mask;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ibasco.ucgdisplay.tools.util;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A {@link Reader} that keeps track of the number of characters read from the underlying reader
+ *
+ * @author Rafael Ibasco
+ */
+public class CountingReader extends FilterReader {
+
+    private long count;
+
+    public CountingReader(Reader in) {
+        super(in);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = super.read();
+        if (c >= 0)
+            count++;
+        return c;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0)
+            count += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+}
@@ -5,15 +5,67 @@ import com.ibasco.ucgdisplay.tools.beans.VendorConfig;
 
 public class StringUtils {
 
-    public static String sanitizeData(String data) {
-        //Remove single line comments
-        data = data.replaceAll("(?<=\\s)//([^\\n\\r]*)", "");
-
-        //Remove multi-line style comments
-        data = data.replaceAll("/\\*(?>[^*/]+|\\*[^/]|/[^*]|/\\*(?>[^*/]+|\\*[^/]|/[^*])*\\*/)*\\*/", "");
+    /**
+     * Removes comments, whitespace and line-breaks from C source code. The contents of string and character literals are left untouched.
+     * <p>
+     * The code parser no longer uses this since it tokenizes the source with {@link CodeLexer}, it is only kept for API compatibility.
+     *
+     * @param data
+     *         The C source code
+     *
+     * @return The sanitized code
+     */
+    public static String sanitizeData(CharSequence data) {
+        return sanitizeData(data, new StringBuilder(data.length())).toString();
+    }
 
-        //Remove spaces and line-breaks
-        return data.replaceAll("[\\n\\r\\s]", "");
+    /**
+     * Removes comments, whitespace and line-breaks from C source code in a single pass. The contents of string and character literals are left untouched.
+     * <p>
+     * Only kept for API compatibility, see {@link #sanitizeData(CharSequence)}.
+     *
+     * @param data
+     *         The C source code
+     * @param output
+     *         The buffer receiving the sanitized code. The buffer is cleared before use so it can be reused between calls.
+     *
+     * @return The output buffer
+     */
+    public static StringBuilder sanitizeData(CharSequence data, StringBuilder output) {
+        output.setLength(0);
+        final int length = data.length();
+        int i = 0;
+        while (i < length) {
+            char c = data.charAt(i);
+            char next = i + 1 < length ? data.charAt(i + 1) : 0;
+            if (c == '/' && next == '/') {
+                //Single line comment, skip up to the line-break
+                i += 2;
+                while (i < length && data.charAt(i) != '\n' && data.charAt(i) != '\r')
+                    i++;
+            } else if (c == '/' && next == '*') {
+                //Multi-line comment, skip up to (and including) the closing marker
+                i += 2;
+                while (i < length && !(data.charAt(i) == '*' && i + 1 < length && data.charAt(i + 1) == '/'))
+                    i++;
+                i = Math.min(i + 2, length);
+            } else if (c == '"' || c == '\'') {
+                //String or character literal, copy verbatim
+                int start = i++;
+                while (i < length && data.charAt(i) != c) {
+                    if (data.charAt(i) == '\\')
+                        i++;
+                    i++;
+                }
+                i = Math.min(i + 1, length);
+                output.append(data, start, i);
+            } else {
+                if (!Character.isWhitespace(c))
+                    output.append(c);
+                i++;
+            }
+        }
+        return output;
     }
 
     public static boolean isBlank(final CharSequence cs) {
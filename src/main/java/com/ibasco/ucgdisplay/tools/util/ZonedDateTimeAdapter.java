@@ -0,0 +1,130 @@
+package com.ibasco.ucgdisplay.tools.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.*;
+
+/**
+ * Gson adapter for {@link ZonedDateTime}. The value is written in the same nested layout gson produced reflectively for the existing manifests
+ * (<code>{ "dateTime": { "date": {...}, "time": {...} }, "offset": {...}, "zone": {...} }</code>), without requiring access to the
+ * internals of {@code java.time}. ISO-8601 strings are accepted when reading.
+ *
+ * @author Rafael Ibasco
+ */
+public class ZonedDateTimeAdapter extends TypeAdapter<ZonedDateTime> {
+
+    @Override
+    public void write(JsonWriter out, ZonedDateTime value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("dateTime").beginObject();
+        out.name("date").beginObject();
+        out.name("year").value(value.getYear());
+        out.name("month").value(value.getMonthValue());
+        out.name("day").value(value.getDayOfMonth());
+        out.endObject();
+        out.name("time").beginObject();
+        out.name("hour").value(value.getHour());
+        out.name("minute").value(value.getMinute());
+        out.name("second").value(value.getSecond());
+        out.name("nano").value(value.getNano());
+        out.endObject();
+        out.endObject();
+        out.name("offset");
+        writeOffset(out, value.getOffset());
+        out.name("zone");
+        if (value.getZone() instanceof ZoneOffset) {
+            writeOffset(out, (ZoneOffset) value.getZone());
+        } else {
+            out.beginObject().name("id").value(value.getZone().getId()).endObject();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ZonedDateTime read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token == JsonToken.STRING) {
+            return ZonedDateTime.parse(in.nextString());
+        }
+        int year = 0, month = 1, day = 1, hour = 0, minute = 0, second = 0, nano = 0;
+        ZoneOffset offset = ZoneOffset.UTC;
+        ZoneId zone = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "dateTime" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String name = in.nextName();
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            String field = name + "." + in.nextName();
+                            int fieldValue = in.nextInt();
+                            switch (field) {
+                                case "date.year" -> year = fieldValue;
+                                case "date.month" -> month = fieldValue;
+                                case "date.day" -> day = fieldValue;
+                                case "time.hour" -> hour = fieldValue;
+                                case "time.minute" -> minute = fieldValue;
+                                case "time.second" -> second = fieldValue;
+                                case "time.nano" -> nano = fieldValue;
+                                default -> {
+                                }
+                            }
+                        }
+                        in.endObject();
+                    }
+                    in.endObject();
+                }
+                case "offset" -> offset = readOffset(in);
+                case "zone" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String name = in.nextName();
+                        if ("id".equals(name)) {
+                            zone = ZoneId.of(in.nextString());
+                        } else if ("totalSeconds".equals(name)) {
+                            zone = ZoneOffset.ofTotalSeconds(in.nextInt());
+                        } else {
+                            in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        return ZonedDateTime.ofLocal(dateTime, (zone != null) ? zone : offset, offset);
+    }
+
+    private static void writeOffset(JsonWriter out, ZoneOffset offset) throws IOException {
+        out.beginObject().name("totalSeconds").value(offset.getTotalSeconds()).endObject();
+    }
+
+    private static ZoneOffset readOffset(JsonReader in) throws IOException {
+        ZoneOffset offset = ZoneOffset.UTC;
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("totalSeconds".equals(in.nextName())) {
+                offset = ZoneOffset.ofTotalSeconds(in.nextInt());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return offset;
+    }
+}
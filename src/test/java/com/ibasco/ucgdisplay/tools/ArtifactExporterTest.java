@@ -0,0 +1,88 @@
+package com.ibasco.ucgdisplay.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtifactExporterTest {
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void commitReplacesAndRemovesArtifacts() throws IOException {
+        Files.writeString(projectDir.resolve("a.txt"), "old");
+        Files.writeString(projectDir.resolve("b.txt"), "stale");
+
+        try (var exporter = new ArtifactExporter(projectDir)) {
+            exporter.write("a.txt", out -> out.write("new"));
+            exporter.write("dir/c.txt", out -> out.write("created"));
+            assertTrue(exporter.delete("b.txt"));
+            assertFalse(exporter.delete("missing.txt"));
+            assertEquals(3, exporter.getPendingCount());
+            assertEquals(3, exporter.commit());
+        }
+
+        assertEquals("new", Files.readString(projectDir.resolve("a.txt")));
+        assertEquals("created", Files.readString(projectDir.resolve("dir/c.txt")));
+        assertFalse(Files.exists(projectDir.resolve("b.txt")));
+        try (var files = Files.list(projectDir)) {
+            assertEquals(2, files.count(), "Temporary files or backups left behind");
+        }
+    }
+
+    @Test
+    void unchangedArtifactIsSkipped() throws IOException {
+        Files.writeString(projectDir.resolve("a.txt"), "same");
+
+        try (var exporter = new ArtifactExporter(projectDir)) {
+            exporter.write("a.txt", out -> out.write("same"));
+            assertEquals(0, exporter.getPendingCount());
+            assertEquals(projectDir.resolve("a.txt"), exporter.getStagedPath("a.txt"));
+        }
+    }
+
+    @Test
+    void failedCommitRestoresReplacedAndRemovedArtifacts() throws IOException {
+        Files.writeString(projectDir.resolve("a.txt"), "old");
+        Files.writeString(projectDir.resolve("b.txt"), "stale");
+        //A non-empty directory cannot be replaced by a file
+        Files.createDirectories(projectDir.resolve("c.txt"));
+        Files.writeString(projectDir.resolve("c.txt/child"), "x");
+
+        try (var exporter = new ArtifactExporter(projectDir)) {
+            exporter.write("a.txt", out -> out.write("new"));
+            exporter.delete("b.txt");
+            exporter.write("c.txt", out -> out.write("new"));
+            assertThrows(IOException.class, exporter::commit);
+            assertEquals(0, exporter.getPendingCount());
+        }
+
+        assertEquals("old", Files.readString(projectDir.resolve("a.txt")));
+        assertEquals("stale", Files.readString(projectDir.resolve("b.txt")));
+        assertTrue(Files.isDirectory(projectDir.resolve("c.txt")));
+        try (var files = Files.list(projectDir)) {
+            assertEquals(3, files.count(), "Temporary files or backups left behind");
+        }
+    }
+
+    @Test
+    void dryRunLeavesProjectUntouched() throws IOException {
+        Files.writeString(projectDir.resolve("b.txt"), "stale");
+
+        try (var exporter = new ArtifactExporter(projectDir)) {
+            exporter.setDryRun(true);
+            exporter.write("a.txt", out -> out.write("new"));
+            exporter.delete("b.txt");
+            assertEquals(0, exporter.commit());
+        }
+
+        assertFalse(Files.exists(projectDir.resolve("a.txt")));
+        assertEquals("stale", Files.readString(projectDir.resolve("b.txt")));
+    }
+}
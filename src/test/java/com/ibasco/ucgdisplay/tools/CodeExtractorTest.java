@@ -0,0 +1,84 @@
+package com.ibasco.ucgdisplay.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Extracts the font entries from project archives written on the fly
+ *
+ * @author Rafael Ibasco
+ */
+class CodeExtractorTest {
+
+    private static final String FONT_DIR = "tools/font/build/single_font_files/";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fontsAreFoundUnderAnyArchiveRoot() throws IOException {
+        //Archives of a commit are rooted at u8g2-<sha>/ instead of u8g2-master/
+        String root = "u8g2-0123456789abcdef0123456789abcdef01234567/";
+        Path archive = writeArchive(List.of(root + FONT_DIR + "u8g2_font_5x7_tr.c",
+                                            root + FONT_DIR + "u8g2_font_helvB08_tf.c",
+                                            root + FONT_DIR + "README.md",
+                                            root + FONT_DIR + "nested/u8g2_font_nested_tf.c",
+                                            root + "csrc/u8g2_font_not_a_font_file.c"));
+
+        List<CodeExtractor.FontEntry> fonts = new CodeExtractor().extractFontFilesFromArchive(archive);
+
+        assertEquals(List.of("u8g2_font_5x7_tr.c", "u8g2_font_helvB08_tf.c"), fonts.stream().map(CodeExtractor.FontEntry::name).toList());
+        assertEquals(95, fonts.get(0).glyphCount());
+        assertEquals(256, fonts.get(0).glyphTotal());
+    }
+
+    @Test
+    void fontsKeepArchiveOrderWhenReadConcurrently() throws IOException {
+        String root = "u8g2-master/";
+        var entries = new ArrayList<String>();
+        var expected = new ArrayList<String>();
+        //Not in name order, the entries must come back in the order of the archive
+        for (int i = 0; i < 500; i++) {
+            String name = String.format("u8g2_font_f%03d_tr.c", (i * 7919) % 500);
+            entries.add(root + FONT_DIR + name);
+            expected.add(name);
+        }
+
+        List<CodeExtractor.FontEntry> fonts = new CodeExtractor().extractFontFilesFromArchive(writeArchive(entries));
+
+        assertEquals(expected, fonts.stream().map(CodeExtractor.FontEntry::name).toList());
+    }
+
+    private Path writeArchive(List<String> entries) throws IOException {
+        Path archive = tempDir.resolve("u8g2.zip");
+        try (var out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(fontFile(entry).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+    private static String fontFile(String entry) {
+        return "/*\n" +
+                "  Fontname: -Misc-Fixed-Medium-R-Normal--7-70-75-75-C-50-ISO10646-1\n" +
+                "  Copyright: Public domain font. (" + entry + ")\n" +
+                "  Glyphs: 95/256\n" +
+                "  BBX Build Mode: 0\n" +
+                "*/\n" +
+                "const uint8_t font[] = \"\";\n";
+    }
+}
@@ -0,0 +1,217 @@
+package com.ibasco.ucgdisplay.tools;
+
+import com.ibasco.ucgdisplay.tools.service.GithubService;
+import com.ibasco.ucgdisplay.tools.util.CodeBuilder;
+import com.squareup.javapoet.JavaFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Generates the font enum and its metadata from a small set of fonts, compiles the enum and checks its lookups
+ *
+ * @author Rafael Ibasco
+ */
+class CodeGeneratorTest {
+
+    private static final String FONT_PACKAGE_PATH = "com/ibasco/ucgdisplay/drivers/glcd/enums";
+
+    //Not sorted by key on purpose, the constants must keep this order
+    private static final List<CodeExtractor.FontEntry> FONTS = List.of(
+            new CodeExtractor.FontEntry("u8g2_font_helvB08_tr.c", "Helvetica Bold 8", null, 95, 96, "tr"),
+            new CodeExtractor.FontEntry("u8g2_font_helvB08_tf.c", "Helvetica Bold 8", null, 191, 192, "tf"),
+            new CodeExtractor.FontEntry("u8g2_font_5x7_tr.c", "5x7", null, 95, 96, "tr"),
+            new CodeExtractor.FontEntry("u8g2_font_excluded_tf.c", "Excluded", null, 1, 1, "tf"),
+            new CodeExtractor.FontEntry("u8g2_font_unifont_t_greek.c", null, null, 141, 200, "t"),
+            new CodeExtractor.FontEntry("u8g2_font_helvB08_te.c", "Helvetica Bold 8", null, 240, 256, "te"),
+            new CodeExtractor.FontEntry("u8g2_font_5x7_tf.c", "5x7", null, 191, 192, "tf")
+    );
+
+    private static final List<String> EXCLUSIONS = List.of("u8g2_font_excluded_tf");
+
+    @TempDir
+    Path outputDir;
+
+    @Test
+    void constantsKeepDeclarationOrder() throws Exception {
+        Class<?> glcdFont = compileGlcdFont(false);
+
+        assertEquals(List.of("FONT_HELVB08_TR", "FONT_HELVB08_TF", "FONT_5X7_TR", "FONT_UNIFONT_T_GREEK", "FONT_HELVB08_TE", "FONT_5X7_TF"),
+                     names(glcdFont.getEnumConstants()));
+        Object font = glcdFont.getEnumConstants()[1];
+        assertEquals("u8g2_font_helvB08_tf", invoke(font, "getKey"));
+        assertEquals("Helvetica Bold 8", invoke(font, "getDescription"));
+        assertEquals(191, invoke(font, "getGlyphCount"));
+        assertEquals(192, invoke(font, "getGlyphTotal"));
+        assertSame(font, glcdFont.getMethod("valueAt", int.class).invoke(null, 1));
+    }
+
+    @Test
+    void fromKey() throws Exception {
+        Class<?> glcdFont = compileGlcdFont(false);
+        Method fromKey = glcdFont.getMethod("fromKey", String.class);
+
+        for (Object font : glcdFont.getEnumConstants())
+            assertSame(font, fromKey.invoke(null, invoke(font, "getKey")));
+        assertNull(fromKey.invoke(null, "u8g2_font_excluded_tf"));
+        assertNull(fromKey.invoke(null, "u8g2_font_helvB08"));
+        assertNull(fromKey.invoke(null, (Object) null));
+    }
+
+    @Test
+    void familyAndSuffixLookups() throws Exception {
+        Class<?> glcdFont = compileGlcdFont(false);
+        Method familyOf = glcdFont.getMethod("familyOf", String.class);
+        Method withSuffix = glcdFont.getMethod("withSuffix", String.class);
+
+        assertEquals(List.of("FONT_HELVB08_TE", "FONT_HELVB08_TF", "FONT_HELVB08_TR"), names(familyOf.invoke(null, "u8g2_font_helvB08")));
+        assertEquals(List.of("FONT_5X7_TF", "FONT_5X7_TR"), names(familyOf.invoke(null, "u8g2_font_5x7")));
+        assertEquals(List.of("FONT_UNIFONT_T_GREEK"), names(familyOf.invoke(null, "u8g2_font_unifont")));
+        assertEquals(List.of(), names(familyOf.invoke(null, "u8g2_font_helv")));
+        assertEquals(List.of(), names(familyOf.invoke(null, "u8g2_font_excluded")));
+
+        assertEquals(List.of("FONT_5X7_TF", "FONT_HELVB08_TF"), names(withSuffix.invoke(null, "tf")));
+        assertEquals(List.of("FONT_5X7_TR", "FONT_HELVB08_TR"), names(withSuffix.invoke(null, "tr")));
+        assertEquals(List.of("FONT_UNIFONT_T_GREEK"), names(withSuffix.invoke(null, "t_greek")));
+        assertEquals(List.of(), names(withSuffix.invoke(null, "greek")));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<?>) withSuffix.invoke(null, "tf")).clear());
+    }
+
+    @Test
+    void fontMetadataRoundTrip() throws Exception {
+        var generator = new CodeGenerator(new CodeExtractor(), new GithubService());
+        var out = new ByteArrayOutputStream();
+        generator.writeGlcdFontMetadata(FONTS, EXCLUSIONS, out);
+
+        var in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(0x474C4644, in.readInt());
+        assertEquals(1, in.readUnsignedByte());
+        String[] strings = new String[readVarInt(in)];
+        for (int i = 0; i < strings.length; i++)
+            strings[i] = in.readUTF();
+        var expected = FONTS.stream().filter(f -> !EXCLUSIONS.contains(f.name().replace(".c", ""))).toList();
+        assertEquals(expected.size(), readVarInt(in));
+        for (CodeExtractor.FontEntry font : expected) {
+            assertEquals(font.name().replace(".c", ""), strings[readVarInt(in)]);
+            int description = readVarInt(in);
+            assertEquals(font.desc(), (description == 0) ? null : strings[description - 1]);
+            assertEquals(font.glyphCount(), readVarInt(in));
+            assertEquals(font.glyphTotal(), readVarInt(in));
+        }
+        assertEquals(-1, in.read(), "Trailing bytes in the font metadata");
+        //Descriptions shared by the variants of a face are only stored once
+        assertEquals(expected.size() + 2, strings.length);
+    }
+
+    @Test
+    void packedFontsMatchUnpackedFonts() throws Exception {
+        Object[] fonts = compileGlcdFont(false).getEnumConstants();
+        Class<?> packedGlcdFont = compileGlcdFont(true);
+        Object[] packedFonts = packedGlcdFont.getEnumConstants();
+
+        assertEquals(names(fonts), names(packedFonts));
+        for (int i = 0; i < fonts.length; i++) {
+            for (String method : List.of("getKey", "getDescription", "getGlyphCount", "getGlyphTotal"))
+                assertEquals(invoke(fonts[i], method), invoke(packedFonts[i], method), method);
+        }
+        assertSame(packedFonts[2], packedGlcdFont.getMethod("fromKey", String.class).invoke(null, "u8g2_font_5x7_tr"));
+    }
+
+    @Test
+    void fontShardsAreCompiledByTheirOwnTarget() throws IOException {
+        Path sourceDir = outputDir.resolve("u8g2");
+        Files.createDirectories(sourceDir.resolve("csrc"));
+        Files.writeString(sourceDir.resolve("csrc/u8g2.h"), "");
+        Path fontDir = Files.createDirectories(sourceDir.resolve("tools/font/build/single_font_files"));
+        for (CodeExtractor.FontEntry font : FONTS)
+            Files.writeString(fontDir.resolve(font.name()), "");
+        var githubService = new GithubService();
+        githubService.setLocalSourceDir(sourceDir);
+        var generator = new CodeGenerator(new CodeExtractor(), githubService);
+        generator.setIncludeComments(false);
+        generator.setFontShardCount(2);
+
+        String cmake = generator.generateU8g2CmakeFile("master");
+        assertTrue(cmake.contains("add_library(u8g2_font_lookup OBJECT ${U8G2_FONT_LOOKUP_SRC})"), cmake);
+        assertTrue(cmake.contains("target_link_libraries(u8g2_font_lookup PUBLIC u8g2)"), cmake);
+        assertTrue(cmake.contains("/fonts/U8g2LookupFonts_01.cpp\""), cmake);
+        assertFalse(cmake.contains("target_sources(u8g2"), cmake);
+
+        var shards = new StringBuilder();
+        for (int shard = 0; shard < 2; shard++) {
+            var out = new StringWriter();
+            generator.writeFontLookupShardCpp("master", EXCLUSIONS, shard, new CodeBuilder(out));
+            //The shards are compiled without the include paths of the graphics module
+            assertTrue(out.toString().startsWith("#include <u8g2.h>"), out.toString());
+            assertFalse(out.toString().contains("U8g2Hal.h"), out.toString());
+            shards.append(out);
+        }
+        for (CodeExtractor.FontEntry font : FONTS) {
+            String key = font.name().replace(".c", "");
+            String entry = String.format("add_font(context, \"%s\", %s);", key, key);
+            assertTrue(shards.toString().contains(EXCLUSIONS.contains(key) ? "//Excluded: " + entry : "    " + entry), key);
+        }
+    }
+
+    /**
+     * Generate the font enum from {@link #FONTS}, compile it into the temporary directory and load it
+     */
+    private Class<?> compileGlcdFont(boolean packed) throws Exception {
+        var generator = new CodeGenerator(new CodeExtractor(), new GithubService());
+        generator.setIncludeComments(false);
+        generator.setPackedFontMetadata(packed);
+        JavaFile javaFile = generator.generateGlcdFontEnum(FONTS, EXCLUSIONS);
+        Path sourceDir = outputDir.resolve("src");
+        Path classesDir = outputDir.resolve("classes");
+        javaFile.writeTo(sourceDir);
+        Path source = sourceDir.resolve(FONT_PACKAGE_PATH).resolve("GlcdFont.java");
+        if (packed) {
+            Path resource = Files.createDirectories(classesDir.resolve(FONT_PACKAGE_PATH)).resolve(CodeGenerator.FONT_METADATA_RESOURCE);
+            try (var out = Files.newOutputStream(resource)) {
+                generator.writeGlcdFontMetadata(FONTS, EXCLUSIONS, out);
+            }
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        var errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, "-d", classesDir.toString(), source.toString());
+        assertEquals(0, result, errors::toString);
+
+        //No parent other than the platform classes, the drivers on the class path already contain a GlcdFont
+        var loader = new URLClassLoader(new URL[] {classesDir.toUri().toURL()}, null);
+        return Class.forName("com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdFont", true, loader);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    private static Object invoke(Object font, String method) throws Exception {
+        return font.getClass().getMethod(method).invoke(font);
+    }
+
+    private static List<String> names(Object fonts) {
+        return ((fonts instanceof Object[]) ? List.of((Object[]) fonts) : (List<?>) fonts).stream().map(f -> ((Enum<?>) f).name()).toList();
+    }
+}
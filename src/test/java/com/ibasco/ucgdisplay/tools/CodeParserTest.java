@@ -0,0 +1,194 @@
+package com.ibasco.ucgdisplay.tools;
+
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdCommProtocol;
+import com.ibasco.ucgdisplay.tools.beans.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parses the bundled testcodebuild.c in all modes of the {@link CodeParser}
+ *
+ * @author Rafael Ibasco
+ */
+class CodeParserTest {
+
+    private static final String CODEBUILD_RESOURCE = "/testcodebuild.c";
+
+    private static CodebuildIndex codebuild;
+
+    @BeforeAll
+    static void loadCodebuild() throws IOException {
+        try (InputStream in = CodeParserTest.class.getResourceAsStream(CODEBUILD_RESOURCE)) {
+            assertNotNull(in, "Missing resource " + CODEBUILD_RESOURCE);
+            codebuild = new CodebuildIndex(in.readAllBytes());
+        }
+    }
+
+    @Test
+    void parseControllers() {
+        List<Controller> controllers = new CodeParser().parseControllerCode(codebuild.getControllerSection());
+
+        assertEquals(55, controllers.size());
+        assertEquals("A2PRINTER", controllers.get(0).getName());
+        assertEquals("UC1701", controllers.get(controllers.size() - 1).getName());
+        assertEquals(133, controllers.stream().mapToInt(c -> c.getVendorList().size()).sum());
+        assertEquals(205, controllers.stream().flatMap(c -> c.getVendorList().stream()).mapToInt(v -> v.getVendorConfigs().size()).sum());
+    }
+
+    @Test
+    void parseVendorAndConfig() {
+        List<Controller> controllers = new CodeParser().parseControllerCode(codebuild.getControllerSection());
+        Controller controller = controllers.stream().filter(c -> c.getName().equals("HX1230")).findFirst().orElseThrow();
+
+        assertEquals(1, controller.getVendorList().size());
+        Vendor vendor = controller.getVendor("96X68");
+        assertNotNull(vendor);
+        assertEquals(12, vendor.getTileWidth());
+        assertEquals(9, vendor.getTileHeight());
+        assertEquals("u8g2_ll_hvline_vertical_top_lsb", vendor.getBufferLayout());
+        assertEquals("No HW flip", vendor.getNotes());
+
+        assertEquals(1, vendor.getVendorConfigs().size());
+        VendorConfig config = vendor.getVendorConfigs().get(0);
+        assertEquals("u8x8_cad_001", config.getCadName());
+        assertEquals("", config.getCadNameShort());
+        assertEquals(Set.of(GlcdCommInfo.COM_4WSPI, GlcdCommInfo.COM_3WSPI), config.getSupportedInterfaces());
+        assertTrue(config.supports(GlcdCommInfo.COM_4WSPI.getValue() | GlcdCommInfo.COM_3WSPI.getValue()));
+        assertFalse(config.supports(GlcdCommInfo.COM_I2C));
+    }
+
+    @Test
+    void parseVendorsInDeclarationOrder() {
+        List<Controller> controllers = new CodeParser().parseControllerCode(codebuild.getControllerSection());
+        Controller controller = controllers.stream().filter(c -> c.getName().equals("IL3820")).findFirst().orElseThrow();
+
+        assertEquals(List.of("296X128", "V2_296X128"), controller.getVendorList().stream().map(Vendor::getName).toList());
+        assertEquals("u8x8_cad_011", controller.getVendor("V2_296X128").getVendorConfigs().get(0).getCadName());
+    }
+
+    @Test
+    void parseInterfaces() {
+        List<CommInterface> interfaces = new CodeParser().parseInterfaceCode(codebuild.getInterfaceSection());
+
+        assertEquals(List.of(GlcdCommProtocol.SPI_SW_4WIRE, GlcdCommProtocol.SPI_HW_4WIRE, GlcdCommProtocol.PARALLEL_6800, GlcdCommProtocol.PARALLEL_8080,
+                             GlcdCommProtocol.SPI_SW_3WIRE, GlcdCommProtocol.SPI_HW_3WIRE, GlcdCommProtocol.I2C_SW, GlcdCommProtocol.I2C_HW,
+                             GlcdCommProtocol.SPI_SW_4WIRE_ST7920, GlcdCommProtocol.SPI_HW_4WIRE_ST7920, GlcdCommProtocol.I2C_HW_2ND,
+                             GlcdCommProtocol.PARALLEL_6800_KS0108, GlcdCommProtocol.SPI_HW_4WIRE_2ND, GlcdCommProtocol.SED1520,
+                             GlcdCommProtocol.SPI_HW_ST7920_2ND),
+                     interfaces.stream().map(CommInterface::protocol).toList());
+        for (int i = 0; i < interfaces.size(); i++)
+            assertEquals(i, interfaces.get(i).index());
+
+        CommInterface i2c = interfaces.get(6);
+        assertEquals("SW_I2C", i2c.name());
+        assertEquals("u8x8_SetPin_SW_I2C", i2c.setPinFunction());
+        assertEquals("u8x8_byte_arduino_sw_i2c", i2c.arduinoComProcedure());
+        assertEquals("u8x8_gpio_and_delay_arduino", i2c.arduinoGpioProcedure());
+        assertEquals("uint8_t clock, uint8_t data, uint8_t reset = U8X8_PIN_NONE", i2c.pinsWithType());
+        assertEquals("clock,  data,  reset", i2c.pinsPlain());
+        assertEquals("clock,  data [,  reset]", i2c.pinsMarkdown());
+        assertEquals("u8x8_byte_sw_i2c", i2c.genericComProcedure());
+
+        CommInterface ks0108 = interfaces.get(11);
+        assertEquals("", ks0108.name());
+        assertEquals("u8x8_SetPin_KS0108", ks0108.setPinFunction());
+    }
+
+    @Test
+    void unknownInterfaceFails() {
+        var parser = new CodeParser();
+        for (String entry : List.of("{ \"SW_UART\", \"u8x8_SetPin_SW_UART\", \"\", \"\", \"\", \"\", \"\", \"\" }",
+                                    "{ \"3RD_HW_I2C\", \"u8x8_SetPin_HW_I2C\", \"\", \"\", \"\", \"\", \"\", \"\" }",
+                                    "{ \"2ND_SW_I2C\", \"u8x8_SetPin_SW_I2C\", \"\", \"\", \"\", \"\", \"\", \"\" }",
+                                    "{ \"\", \"u8x8_SetPin_ST7567\", \"\", \"\", \"\", \"\", \"\", \"\" }")) {
+            var e = assertThrows(IllegalStateException.class, () -> parser.parseInterfaceCode(entry));
+            assertTrue(e.getMessage().startsWith("Unmapped comm interface"), e.getMessage());
+        }
+    }
+
+    @Test
+    void interfaceProtocolIsDerivedFromEntry() {
+        List<CommInterface> interfaces = new CodeParser().parseInterfaceCode("{ \"2ND_HW_SPI\", \"u8x8_SetPin_ST7920_HW_SPI\", \"\", \"\", \"\", \"\", \"\", \"\" }, " +
+                                                                             "{ \"4W_SW_SPI\", \"u8x8_SetPin_4Wire_SW_SPI\", \"\", \"\", \"\", \"\", \"\", \"\" }");
+
+        assertEquals(List.of(GlcdCommProtocol.SPI_HW_ST7920_2ND, GlcdCommProtocol.SPI_SW_4WIRE), interfaces.stream().map(CommInterface::protocol).toList());
+    }
+
+    @Test
+    void parallelModeMatchesSequentialMode() {
+        var sequential = new CodeParser();
+        var parallel = new CodeParser();
+        parallel.setParallel(true);
+
+        assertEquals(describe(sequential.parseControllerCode(codebuild.getControllerSection())),
+                     describe(parallel.parseControllerCode(codebuild.getControllerSection())));
+    }
+
+    @Test
+    void streamingModeMatchesSequentialMode() throws IOException {
+        var parser = new CodeParser();
+        List<Controller> expectedControllers = parser.parseControllerCode(codebuild.getControllerSection());
+        List<CommInterface> expectedInterfaces = parser.parseInterfaceCode(codebuild.getInterfaceSection());
+
+        var controllers = new ArrayList<Controller>();
+        var interfaces = new ArrayList<CommInterface>();
+        int[] counts = new int[2];
+        try (Reader reader = new InputStreamReader(CodeParserTest.class.getResourceAsStream(CODEBUILD_RESOURCE), StandardCharsets.UTF_8)) {
+            parser.parseCodebuild(reader, new CodebuildListener() {
+                @Override
+                public void onController(Controller controller) {
+                    controllers.add(controller);
+                }
+
+                @Override
+                public void onVendor(Vendor vendor) {
+                    counts[0]++;
+                }
+
+                @Override
+                public void onConfig(VendorConfig config) {
+                    counts[1]++;
+                }
+
+                @Override
+                public void onInterface(CommInterface commInterface) {
+                    interfaces.add(commInterface);
+                }
+            });
+        }
+        Collections.sort(controllers);
+
+        assertEquals(describe(expectedControllers), describe(controllers));
+        assertEquals(133, counts[0]);
+        assertEquals(205, counts[1]);
+        assertEquals(expectedInterfaces, interfaces);
+    }
+
+    /**
+     * @return All parsed values of the controllers, in order
+     */
+    private static String describe(List<Controller> controllers) {
+        var sb = new StringBuilder();
+        for (Controller controller : controllers) {
+            sb.append(controller.getName()).append('\n');
+            for (Vendor vendor : controller.getVendorList()) {
+                sb.append(String.format("  %s %dx%d %s '%s'%n", vendor.getName(), vendor.getTileWidth(), vendor.getTileHeight(), vendor.getBufferLayout(), vendor.getNotes()));
+                for (VendorConfig config : vendor.getVendorConfigs())
+                    sb.append(String.format("    %s '%s' %04x%n", config.getCadName(), config.getCadNameShort(), config.getSupportedInterfaceMask()));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.ibasco.ucgdisplay.tools.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@link HttpCache} against a local server whose contents and response delay can be changed between requests
+ *
+ * @author Rafael Ibasco
+ */
+class HttpCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+
+    private URI uri;
+
+    private volatile String body = "first";
+
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/file", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String etag = "\"" + body + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] data = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", etag);
+                exchange.sendResponseHeaders(200, data.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(data);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/file");
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void revalidatedAndNotModified() throws IOException {
+        try (var cache = new HttpCache(cacheDir)) {
+            assertEquals("first", cache.getString(uri));
+            assertEquals("first", cache.getString(uri));
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, cache.getHitCount());
+        }
+        try (var cache = new HttpCache(cacheDir)) {
+            assertEquals("first", cache.getString(uri));
+            assertEquals(0, cache.getMissCount());
+        }
+    }
+
+    @Test
+    void staleObjectIsKeptUntilClose() throws Exception {
+        Path stale;
+        try (var cache = new HttpCache(cacheDir)) {
+            assertEquals("first", cache.getString(uri));
+
+            body = "second";
+            release = new CountDownLatch(1);
+            cache.setStaleTimeout(Duration.ofMillis(50));
+            stale = cache.get(uri);
+            assertEquals("first", Files.readString(stale));
+
+            //Let the revalidation replace the entry in the background
+            release.countDown();
+            for (int i = 0; i < 100 && cache.getMissCount() < 2; i++)
+                Thread.sleep(50);
+            assertEquals(2, cache.getMissCount());
+            assertEquals("first", Files.readString(stale), "Object handed to the caller was deleted");
+        }
+        assertFalse(Files.exists(stale));
+        try (var objects = Files.list(cacheDir.resolve("objects"))) {
+            assertEquals(1, objects.count());
+        }
+
+        //The entry updated in the background must have been written to the index
+        try (var cache = new HttpCache(cacheDir)) {
+            assertEquals("second", cache.getString(uri));
+            assertEquals(0, cache.getMissCount());
+        }
+    }
+
+    @Test
+    void closeWaitsForRevalidation() throws IOException {
+        try (var cache = new HttpCache(cacheDir)) {
+            assertEquals("first", cache.getString(uri));
+
+            body = "second";
+            release = new CountDownLatch(1);
+            cache.setStaleTimeout(Duration.ofMillis(50));
+            assertEquals("first", cache.getString(uri));
+            new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ignored) {
+                }
+                release.countDown();
+            }).start();
+        }
+        try (var cache = new HttpCache(cacheDir)) {
+            assertEquals("second", cache.getString(uri));
+            assertEquals(0, cache.getMissCount());
+        }
+    }
+
+    @Test
+    void missingObjectIsRemovedFromIndex() throws IOException {
+        try (var cache = new HttpCache(cacheDir)) {
+            Files.delete(cache.get(uri));
+        }
+        server.stop(0);
+        //Without the object and without a server the url must not be served from the index anymore
+        try (var cache = new HttpCache(cacheDir)) {
+            assertThrows(IOException.class, () -> cache.get(uri));
+        }
+        assertFalse(Files.readString(cacheDir.resolve("index.json")).contains(uri.toString()));
+    }
+}
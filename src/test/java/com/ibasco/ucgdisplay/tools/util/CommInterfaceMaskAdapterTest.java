@@ -0,0 +1,38 @@
+package com.ibasco.ucgdisplay.tools.util;
+
+import com.google.gson.Gson;
+import com.ibasco.ucgdisplay.tools.beans.GlcdCommInfo;
+import com.ibasco.ucgdisplay.tools.beans.VendorConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommInterfaceMaskAdapterTest {
+
+    private final Gson gson = new Gson();
+
+    @Test
+    void writesListOfFlags() {
+        var config = new VendorConfig();
+        config.setCadName("u8x8_cad_001");
+        config.setSupportedInterfaceMask(GlcdCommInfo.COM_4WSPI.getValue() | GlcdCommInfo.COM_I2C.getValue());
+
+        assertEquals("{\"cadName\":\"u8x8_cad_001\",\"supportedInterfaces\":[{\"name\":\"COM_4WSPI\",\"value\":1},{\"name\":\"COM_I2C\",\"value\":16}]}",
+                     gson.toJson(config));
+    }
+
+    @Test
+    void readsExistingManifestLayout() {
+        String json = "{\"cadName\":\"u8x8_cad_001\",\"supportedInterfaces\":[{\"name\":\"COM_8080\",\"value\":8},{\"name\":\"COM_8080\",\"value\":8},{\"name\":\"COM_UNKNOWN\",\"value\":-1},{\"name\":\"COM_6800\",\"value\":4}]}";
+        VendorConfig config = gson.fromJson(json, VendorConfig.class);
+
+        assertEquals(GlcdCommInfo.COM_8080.getValue() | GlcdCommInfo.COM_6800.getValue(), config.getSupportedInterfaceMask());
+    }
+
+    @Test
+    void readsPlainMask() {
+        VendorConfig config = gson.fromJson("{\"supportedInterfaces\":17}", VendorConfig.class);
+
+        assertEquals(17, config.getSupportedInterfaceMask());
+    }
+}
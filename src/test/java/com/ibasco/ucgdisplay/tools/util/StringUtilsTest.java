@@ -0,0 +1,49 @@
+package com.ibasco.ucgdisplay.tools.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringUtilsTest {
+
+    @Test
+    void removesCommentsAndWhitespace() {
+        assertEquals("{1,2}", StringUtils.sanitizeData("{ 1, // first\n  2 /* second */ }"));
+    }
+
+    @Test
+    void keepsLineCommentMarkerInStringLiteral() {
+        assertEquals("{\"http://u8g2\",1}", StringUtils.sanitizeData("{ \"http://u8g2\", 1 } // comment"));
+    }
+
+    @Test
+    void keepsBlockCommentMarkersInLiterals() {
+        assertEquals("{\"a /* b */ c\",'/','*'}", StringUtils.sanitizeData("{ \"a /* b */ c\", '/', '*' }"));
+    }
+
+    @Test
+    void keepsEscapedQuotesInStringLiteral() {
+        assertEquals("{\"say \\\"//hi\\\"\",2}", StringUtils.sanitizeData("{ \"say \\\"//hi\\\"\", /* x */ 2 }"));
+        assertEquals("{'\\'',3}", StringUtils.sanitizeData("{ '\\'', 3 }"));
+    }
+
+    @Test
+    void unterminatedBlockCommentRunsToTheEnd() {
+        assertEquals("{1,", StringUtils.sanitizeData("{ 1, /* 2, 3 }"));
+        assertEquals("x", StringUtils.sanitizeData("x /*"));
+    }
+
+    @Test
+    void unterminatedStringLiteralRunsToTheEnd() {
+        assertEquals("{\"a // b", StringUtils.sanitizeData("{ \"a // b"));
+    }
+
+    @Test
+    void reusesOutputBuffer() {
+        var output = new StringBuilder("previous contents");
+        assertSame(output, StringUtils.sanitizeData("a b // c", output));
+        assertEquals("ab", output.toString());
+        assertSame(output, StringUtils.sanitizeData("\"x y\"", output));
+        assertEquals("\"x y\"", output.toString());
+    }
+}